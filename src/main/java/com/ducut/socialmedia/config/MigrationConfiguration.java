@@ -0,0 +1,26 @@
+package com.ducut.socialmedia.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs the Flyway migrations at startup unless {@code app.migrations.on-startup=false}. The
+ * switch is for the class-data-sharing training run in the Dockerfile, which boots without a
+ * database. In an AOT build {@code spring.flyway.enabled} is fixed when the jar is built, so it
+ * cannot be used for that.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MigrationConfiguration {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${app.migrations.on-startup:true}") boolean onStartup) {
+        return flyway -> {
+            if (onStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.ducut.socialmedia.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Tells whether the Postgres-only parts of the schema, such as the full-text index on posts,
+ * are there. On Postgres they come from the Flyway migrations in {@code db/migration}; other
+ * databases (H2 in tests) get the schema from Hibernate and do without them.
+ *
+ * <p>The database is looked up on first use, not at boot, so startup never waits on a connection.
+ */
+@Component
+public class PostgresSchemaSupport {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Boolean postgres;
+
+    /** Whether Postgres-only features such as the full-text index are available. */
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try {
+                result = "PostgreSQL".equals(
+                        JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Error reading database product name", e);
+            }
+            postgres = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ducut.socialmedia.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the single pool with a primary and a replica pool when
+ * {@code app.datasource.replica.url} is set. Both pools take the {@code spring.datasource.hikari}
+ * settings; the replica's can be overridden under {@code app.datasource.replica.hikari}. Only the
+ * routing DataSource is a bean, so statements are timed once whichever pool runs them.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    public ReplicaRouting replicaRouting(DataSourceProperties properties,
+                                         Environment environment,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.datasource.replica.url}") String url,
+                                         @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                         @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricRegistry(meterRegistry);
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        binder.bind("app.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        replica.setMetricRegistry(meterRegistry);
+        return new ReplicaRouting(primary, replica, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRouting replicaRouting) {
+        return new LazyConnectionDataSourceProxy(replicaRouting.dataSource());
+    }
+
+    /** Always UP: with the replica down, reads fall back to the primary and the service keeps working. */
+    @Bean
+    public HealthIndicator replicaHealthIndicator(ReplicaRouting replicaRouting) {
+        return () -> {
+            boolean available = replicaRouting.isReplicaAvailable();
+            return Health.up()
+                    .withDetail("replica", available ? "available" : "unavailable")
+                    .withDetail("reads", available ? "replica" : "primary")
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package com.ducut.socialmedia.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary. Wrapped in a {@code LazyConnectionDataSourceProxy}, so the choice is made at the first
+ * statement, once the transaction's read-only flag is known.
+ *
+ * <p>Reads stay on the primary while the current thread is pinned, which
+ * {@link ReadYourWritesFilter} does for writes and for clients that wrote recently. A replica
+ * that fails to hand out a connection is marked down at once and its reads fall back to the
+ * primary; the scheduled check brings it back when it answers again.
+ */
+public class ReplicaRouting implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouting.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final AtomicBoolean replicaAvailable = new AtomicBoolean(true);
+    private final Counter fallbacks;
+    private final DataSource dataSource = new RoutingDataSource();
+
+    public ReplicaRouting(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        Gauge.builder("datasource.replica.available", replicaAvailable, available -> available.get() ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("datasource.replica.fallbacks")
+                .description("Read-only connections served by the primary because the replica was down")
+                .register(meterRegistry);
+    }
+
+    /** Keeps this thread's reads on the primary until {@link #unpin()}. */
+    public static void pin() {
+        pinned.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        pinned.remove();
+    }
+
+    public static boolean isPinned() {
+        return pinned.get() != null;
+    }
+
+    /**
+     * Runs a read on the primary. For loads whose result is shared through a cache: a row read
+     * from a lagging replica right after a write would otherwise be served to everyone,
+     * the writer included, until the next invalidation.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (isPinned()) {
+            return read.get();
+        }
+        pin();
+        try {
+            return read.get();
+        } finally {
+            unpin();
+        }
+    }
+
+    /** The routing target, to be wrapped in a {@code LazyConnectionDataSourceProxy}. */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-interval:5s}")
+    public void checkReplica() {
+        boolean healthy;
+        try (Connection connection = replica.getConnection()) {
+            healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (healthy && replicaAvailable.compareAndSet(false, true)) {
+            logger.info("Replica is reachable again; routing read-only transactions to it");
+        } else if (!healthy && replicaAvailable.compareAndSet(true, false)) {
+            logger.warn("Replica failed its health check; reads fall back to the primary");
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPinned()) {
+            return primary.getConnection();
+        }
+        if (replicaAvailable.get()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                if (replicaAvailable.compareAndSet(true, false)) {
+                    logger.warn("Error connecting to replica, falling back to the primary: {}", e.getMessage());
+                }
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (replica instanceof Closeable closeable) {
+            closeable.close();
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /** Unwraps to the primary pool, so pool metrics and health checks keep finding it. */
+    private final class RoutingDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Routing uses the pools' own credentials");
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ducut.socialmedia.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every JDBC statement and attributes it to the HTTP request running on the same thread.
+ *
+ * <p>Statements are recorded in {@code db.statements}, tagged by operation. While a request is
+ * being served (see {@link RequestSqlMetricsFilter}) the count and time also accumulate in a
+ * per-request {@link RequestStats}. Statements slower than {@code app.sql.slow-threshold} are
+ * counted in {@code db.statements.slow}; a sample of them ({@code app.sql.slow-log-sample-rate})
+ * is logged with the SQL text. Bind parameters are never logged.
+ */
+@Component
+public class SqlMetrics implements QueryExecutionListener {
+    private static final Logger logger = LoggerFactory.getLogger(SqlMetrics.class);
+    private static final String STARTED = SqlMetrics.class.getName() + ".started";
+    private static final int MAX_LOGGED_SQL = 1000;
+
+    private static final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+
+    enum Operation { SELECT, INSERT, UPDATE, DELETE, OTHER }
+
+    /** Statements run on behalf of one request; only touched by the thread serving it. */
+    static final class RequestStats {
+        final String description;
+        int statements;
+        long nanos;
+
+        RequestStats(String description) {
+            this.description = description;
+        }
+    }
+
+    private final Map<Operation, Timer> timers = new EnumMap<>(Operation.class);
+    private final Counter slowStatements;
+    private final long slowThresholdNanos;
+    private final double slowLogSampleRate;
+
+    public SqlMetrics(MeterRegistry registry,
+                      @Value("${app.sql.slow-threshold:200ms}") Duration slowThreshold,
+                      @Value("${app.sql.slow-log-sample-rate:1.0}") double slowLogSampleRate) {
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, Timer.builder("db.statements")
+                    .description("JDBC statement execution time")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        this.slowStatements = Counter.builder("db.statements.slow")
+                .description("Statements slower than app.sql.slow-threshold")
+                .register(registry);
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowLogSampleRate = slowLogSampleRate;
+    }
+
+    static RequestStats beginRequest(String description) {
+        RequestStats stats = new RequestStats(description);
+        currentRequest.set(stats);
+        return stats;
+    }
+
+    static void endRequest() {
+        currentRequest.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long started = execInfo.getCustomValue(STARTED, Long.class);
+        if (started == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - started;
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        timers.get(operationOf(sql)).record(elapsed, TimeUnit.NANOSECONDS);
+
+        RequestStats stats = currentRequest.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsed;
+        }
+
+        if (elapsed >= slowThresholdNanos) {
+            slowStatements.increment();
+            if (ThreadLocalRandom.current().nextDouble() < slowLogSampleRate) {
+                logSlow(execInfo, sql, elapsed, stats);
+            }
+        }
+    }
+
+    private static void logSlow(ExecutionInfo execInfo, String sql, long elapsedNanos, RequestStats stats) {
+        String text = sql.length() > MAX_LOGGED_SQL ? sql.substring(0, MAX_LOGGED_SQL) + "..." : sql;
+        logger.warn("Slow statement ({} ms{}{}): {}",
+                elapsedNanos / 1_000_000,
+                execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+                stats != null ? ", " + stats.description : "",
+                text);
+    }
+
+    static Operation operationOf(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        if (sql.regionMatches(true, start, "select", 0, 6) || sql.regionMatches(true, start, "with", 0, 4)) {
+            return Operation.SELECT;
+        }
+        if (sql.regionMatches(true, start, "insert", 0, 6)) {
+            return Operation.INSERT;
+        }
+        if (sql.regionMatches(true, start, "update", 0, 6)) {
+            return Operation.UPDATE;
+        }
+        if (sql.regionMatches(true, start, "delete", 0, 6)) {
+            return Operation.DELETE;
+        }
+        return Operation.OTHER;
+    }
+}
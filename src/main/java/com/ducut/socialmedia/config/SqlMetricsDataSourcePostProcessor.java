@@ -0,0 +1,34 @@
+package com.ducut.socialmedia.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the pooled DataSource so {@link SqlMetrics} sees every statement, whichever of JPA,
+ * JdbcTemplate or plain JDBC issued it. The wrapper unwraps to the Hikari pool, so the pool
+ * metrics and health checks still find it.
+ */
+@Component
+public class SqlMetricsDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlMetrics> sqlMetrics;
+
+    public SqlMetricsDataSourcePostProcessor(ObjectProvider<SqlMetrics> sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(beanName, dataSource)
+                .listener(sqlMetrics.getObject())
+                .build();
+    }
+}
@@ -1,20 +1,53 @@
 package com.ducut.socialmedia.controller;
 
+import com.ducut.socialmedia.dto.CommentBatchReport;
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.IngestReport;
+import com.ducut.socialmedia.dto.NewComment;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.dto.Reaction;
+import com.ducut.socialmedia.dto.ReactionReport;
 import com.ducut.socialmedia.model.Comment;
 import com.ducut.socialmedia.model.Post;
-import com.ducut.socialmedia.repository.CommentRepository;
 import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.CounterAggregator;
+import com.ducut.socialmedia.service.FeedService;
+import com.ducut.socialmedia.service.FieldSelection;
+import com.ducut.socialmedia.service.LiveFeed;
+import com.ducut.socialmedia.service.PostCache;
+import com.ducut.socialmedia.service.PostDefaults;
+import com.ducut.socialmedia.service.PostExportService;
+import com.ducut.socialmedia.service.PostIngestService;
+import com.ducut.socialmedia.service.PostQueryService;
+import com.ducut.socialmedia.service.PostWriteService;
+import com.ducut.socialmedia.service.ReactionService;
+import com.ducut.socialmedia.service.SearchService;
+import com.ducut.socialmedia.service.SingleFlight;
+import com.ducut.socialmedia.service.TrendingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -25,46 +58,138 @@ public class PostController {
     private PostRepository postRepository;
 
     @Autowired
-    private CommentRepository commentRepository;
+    private FeedService feedService;
+
+    @Autowired
+    private PostQueryService postQueryService;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private PostIngestService postIngestService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private PostWriteService postWriteService;
+
+    @Autowired
+    private LiveFeed liveFeed;
+
+    @Autowired
+    private PostExportService postExportService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ReactionService reactionService;
 
     @GetMapping
-    public ResponseEntity<List<Post>> getAllPosts() {
+    public ResponseEntity<?> getAllPosts(
+            @RequestParam(defaultValue = "" + FeedService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "" + FeedService.DEFAULT_PREVIEW_COMMENTS) int previewComments,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include) {
+        Optional<FieldSelection> selection;
         try {
-            List<Post> posts = postRepository.findAllByOrderByCreatedAtDesc();
-            return ResponseEntity.ok(posts);
+            selection = FieldSelection.parse(FieldSelection.Resource.POST, fields, include);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        }
+        try {
+            if (selection.isPresent()) {
+                return ResponseEntity.ok(feedService.getSparseFeedPage(limit, before, previewComments, selection.get()));
+            }
+            return ResponseEntity.ok(feedService.getFeedPage(limit, before, previewComments));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", "Invalid cursor")
+            );
+        } catch (SingleFlight.WaitTimeoutException e) {
+            // The same read is already running and slow; another copy would only add load
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
         } catch (Exception e) {
             logger.error("Error fetching posts: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /** Posts by id for clients that already know which ones they need; {@code ?ids=1,2,3}. */
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getPostsByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(postQueryService.findPosts(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        } catch (Exception e) {
+            logger.error("Error fetching posts by ids: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchPosts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "" + FeedService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String after) {
+        try {
+            return ResponseEntity.ok(searchService.search(query, limit, after));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        } catch (Exception e) {
+            logger.error("Error searching posts: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingPosts(
+            @RequestParam(defaultValue = "" + TrendingService.DEFAULT_LIMIT) int limit) {
+        try {
+            return ResponseEntity.ok(trendingService.top(limit));
+        } catch (Exception e) {
+            logger.error("Error fetching trending posts: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createPost(@RequestBody Post post) {
         try {
-            if ((post.getContent() == null || post.getContent().trim().isEmpty()) &&
-                    (post.getImageUrl() == null || post.getImageUrl().trim().isEmpty()) &&
-                    (post.getVideoUrl() == null || post.getVideoUrl().trim().isEmpty())) {
+            if (!PostDefaults.hasBody(post)) {
                 return ResponseEntity.badRequest().body(
                         Map.of("error", "Validation failed",
                                 "message", "Post must contain either content, image, or video")
                 );
             }
 
-            if (post.getUsername() == null || post.getUsername().trim().isEmpty()) {
-                post.setUsername("Anonymous");
-            }
-            if (post.getUserImageUrl() == null || post.getUserImageUrl().trim().isEmpty()) {
-                post.setUserImageUrl("https://randomuser.me/api/portraits/lego/1.jpg");
-            }
-
-            post.setContent(post.getContent() != null ? post.getContent().trim() : null);
-            post.setImageUrl(post.getImageUrl() != null ? post.getImageUrl().trim() : null);
-            post.setVideoUrl(post.getVideoUrl() != null ? post.getVideoUrl().trim() : null);
+            PostDefaults.applyDefaults(post);
 
             post.setCreatedAt(LocalDateTime.now());
             post.setUpdatedAt(LocalDateTime.now());
 
             Post savedPost = postRepository.save(post);
+            postCache.invalidateFeedHead();
+            liveFeed.postCreated(PostView.from(savedPost, 0, List.of()));
             return ResponseEntity.ok(savedPost);
         } catch (Exception e) {
             logger.error("Error creating post: ", e);
@@ -81,16 +206,7 @@ public class PostController {
         try {
             // Set defaults and timestamps for each post
             posts.forEach(post -> {
-                if (post.getUsername() == null || post.getUsername().trim().isEmpty()) {
-                    post.setUsername("Anonymous");
-                }
-                if (post.getUserImageUrl() == null || post.getUserImageUrl().trim().isEmpty()) {
-                    post.setUserImageUrl("https://randomuser.me/api/portraits/lego/1.jpg");
-                }
-
-                post.setContent(post.getContent() != null ? post.getContent().trim() : null);
-                post.setImageUrl(post.getImageUrl() != null ? post.getImageUrl().trim() : null);
-                post.setVideoUrl(post.getVideoUrl() != null ? post.getVideoUrl().trim() : null);
+                PostDefaults.applyDefaults(post);
 
                 // Set timestamps to now
                 LocalDateTime now = LocalDateTime.now();
@@ -103,6 +219,8 @@ public class PostController {
 
             // Save all posts; IDs will be generated by DB if configured
             List<Post> savedPosts = postRepository.saveAll(posts);
+            postCache.invalidateFeedHead();
+            liveFeed.postsAdded(savedPosts.size());
 
             // Return saved posts with generated IDs
             return ResponseEntity.ok(savedPosts);
@@ -117,35 +235,161 @@ public class PostController {
     }
 
 
+    @PostMapping(value = "/bulk", consumes = PostIngestService.NDJSON)
+    public ResponseEntity<?> ingestPostsStream(
+            InputStream body,
+            @RequestParam(required = false) Integer chunkSize) {
+        try {
+            IngestReport report = postIngestService.ingest(body, chunkSize);
+            postCache.invalidateFeedHead();
+            liveFeed.postsAdded(report.inserted());
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            logger.error("Error streaming bulk posts: ", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of(
+                            "error", "Internal Server Error",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+
+    /**
+     * Live updates as Server-Sent Events. Browsers resend {@code Last-Event-ID} when they
+     * reconnect, which resumes the stream from the server's buffer.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamPosts(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            Long resumeAfter = null;
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                try {
+                    resumeAfter = Long.parseLong(lastEventId.trim());
+                } catch (NumberFormatException e) {
+                    // Not one of ours; start from now
+                }
+            }
+            return ResponseEntity.ok(liveFeed.subscribe(resumeAfter));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        } catch (Exception e) {
+            logger.error("Error opening live feed: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Full dump as NDJSON, one post per line in id order, gzipped when the client accepts it.
+     * After a dropped connection, resume with {@code afterId} set to the last id received.
+     */
+    @GetMapping(value = "/export", produces = PostIngestService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "true") boolean comments,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        PostExportService.Filter filter = new PostExportService.Filter(createdFrom, createdTo, afterId, comments);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        // Runs after the handler returns, on an async thread; the status line is already sent by then
+        StreamingResponseBody body = out -> {
+            try {
+                if (gzip) {
+                    try (GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024)) {
+                        postExportService.export(filter, zipped);
+                    }
+                } else {
+                    postExportService.export(filter, out);
+                }
+            } catch (UncheckedIOException e) {
+                logger.warn("Export aborted by client: {}", e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error exporting posts: ", e);
+                throw e;
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PostIngestService.NDJSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Post> getPostById(@PathVariable Long id) {
+    public ResponseEntity<?> getPostById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include,
+            WebRequest request) {
         try {
-            Optional<Post> post = postRepository.findById(id);
-            return post.map(ResponseEntity::ok)
+            Optional<FieldSelection> selection = FieldSelection.parse(FieldSelection.Resource.POST, fields, include);
+            // The ETag is taken before the body, so a racing write can only make it older, never newer
+            Optional<String> etag = postQueryService.postEtag(id)
+                    .map(tag -> weakEtag(tag + selection.map(FieldSelection::etagSuffix).orElse("")));
+            if (etag.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(etag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag.get())
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+            if (selection.isPresent()) {
+                return postQueryService.findSparsePost(id, selection.get())
+                        .<ResponseEntity<?>>map(post -> ResponseEntity.ok()
+                                .eTag(etag.get())
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .body(post))
+                        .orElseGet(() -> ResponseEntity.notFound().build());
+            }
+            return postQueryService.findPost(id)
+                    .<ResponseEntity<?>>map(post -> ResponseEntity.ok()
+                            .eTag(etag.get())
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(post))
                     .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        } catch (SingleFlight.WaitTimeoutException e) {
+            // The same read is already running and slow; another copy would only add load
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
         } catch (Exception e) {
             logger.error("Error fetching post by ID: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Weak, because one version is served as JSON, Smile or CBOR and compressed or not. Tomcat
+     * also leaves any response with a strong ETag uncompressed. {@code Vary: Accept} keeps
+     * shared caches from handing one format to a client that asked for another.
+     */
+    private static String weakEtag(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updatePost(@PathVariable Long id, @RequestBody Post postDetails) {
         try {
-            return postRepository.findById(id)
-                    .map(post -> {
-                        post.setContent(postDetails.getContent() != null ?
-                                postDetails.getContent().trim() : null);
-                        post.setUsername(postDetails.getUsername() != null ?
-                                postDetails.getUsername().trim() : null);
-                        post.setUserImageUrl(postDetails.getUserImageUrl() != null ?
-                                postDetails.getUserImageUrl().trim() : null);
-                        post.setImageUrl(postDetails.getImageUrl() != null ?
-                                postDetails.getImageUrl().trim() : null);
-                        post.setVideoUrl(postDetails.getVideoUrl() != null ?
-                                postDetails.getVideoUrl().trim() : null);
-                        post.setUpdatedAt(LocalDateTime.now());
-                        return ResponseEntity.ok(postRepository.save(post));
+            return postWriteService.updatePost(id, postDetails)
+                    .flatMap(savedPost -> {
+                        postCache.invalidatePost(id);
+                        return postQueryService.findPost(id);
+                    })
+                    .<ResponseEntity<?>>map(view -> {
+                        liveFeed.postUpdated(view);
+                        return ResponseEntity.ok(view);
                     })
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
@@ -158,14 +402,23 @@ public class PostController {
         }
     }
 
+    /**
+     * 204 when the post and its comments are gone; 202 when the thread is large enough that the
+     * rows are purged in the background. Either way the post is no longer visible.
+     */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePost(@PathVariable Long id) {
         try {
-            if (postRepository.existsById(id)) {
-                postRepository.deleteById(id);
-                return ResponseEntity.noContent().build();
+            PostWriteService.DeleteOutcome outcome = postWriteService.deletePost(id);
+            if (outcome == PostWriteService.DeleteOutcome.NOT_FOUND) {
+                return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.notFound().build();
+            postCache.invalidatePost(id);
+            trendingService.remove(id);
+            liveFeed.postDeleted(id);
+            return outcome == PostWriteService.DeleteOutcome.SCHEDULED
+                    ? ResponseEntity.accepted().build()
+                    : ResponseEntity.noContent().build();
         } catch (Exception e) {
             logger.error("Error deleting post: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -175,12 +428,14 @@ public class PostController {
     @PostMapping("/{id}/like")
     public ResponseEntity<?> likePost(@PathVariable Long id) {
         try {
-            return postRepository.findById(id)
-                    .map(post -> {
-                        post.setLikeCount(post.getLikeCount() + 1);
-                        post.setUpdatedAt(LocalDateTime.now());
-                        return ResponseEntity.ok(postRepository.save(post));
-                    })
+            if (!postQueryService.exists(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            counterAggregator.increment(CounterAggregator.Counter.POST_LIKES, id);
+            trendingService.record(id, TrendingService.Signal.LIKE);
+            liveFeed.countersChanged(id);
+            return postQueryService.findPost(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             logger.error("Error liking post: ", e);
@@ -195,12 +450,14 @@ public class PostController {
     @PostMapping("/{id}/share")
     public ResponseEntity<?> sharePost(@PathVariable Long id) {
         try {
-            return postRepository.findById(id)
-                    .map(post -> {
-                        post.setShareCount(post.getShareCount() + 1);
-                        post.setUpdatedAt(LocalDateTime.now());
-                        return ResponseEntity.ok(postRepository.save(post));
-                    })
+            if (!postQueryService.exists(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            counterAggregator.increment(CounterAggregator.Counter.POST_SHARES, id);
+            trendingService.record(id, TrendingService.Signal.SHARE);
+            liveFeed.countersChanged(id);
+            return postQueryService.findPost(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             logger.error("Error sharing post: ", e);
@@ -212,11 +469,89 @@ public class PostController {
         }
     }
 
+    /**
+     * Many likes, shares and comment likes in one request. Each reaction gets a result in
+     * request order; the ones naming a missing post or comment are skipped.
+     */
+    @PostMapping("/reactions")
+    public ResponseEntity<?> react(@RequestBody List<Reaction> reactions) {
+        try {
+            ReactionReport report = reactionService.apply(reactions);
+            Set<Long> postIds = new HashSet<>();
+            for (ReactionReport.Result result : report.results()) {
+                if (result.status() != ReactionReport.Status.APPLIED) {
+                    continue;
+                }
+                postIds.add(result.postId());
+                if (result.type() == Reaction.Type.LIKE) {
+                    trendingService.record(result.postId(), TrendingService.Signal.LIKE);
+                } else if (result.type() == Reaction.Type.SHARE) {
+                    trendingService.record(result.postId(), TrendingService.Signal.SHARE);
+                }
+            }
+            postIds.forEach(liveFeed::countersChanged);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        } catch (Exception e) {
+            logger.error("Error applying reactions: ", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of(
+                            "error", "Internal Server Error",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+
     @GetMapping("/{postId}/comments")
-    public ResponseEntity<List<Comment>> getCommentsByPostId(@PathVariable Long postId) {
+    public ResponseEntity<?> getCommentsByPostId(
+            @PathVariable Long postId,
+            @RequestParam(defaultValue = "" + PostQueryService.DEFAULT_COMMENT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
         try {
-            List<Comment> comments = commentRepository.findByPostId(postId);
-            return ResponseEntity.ok(comments);
+            Optional<FieldSelection> selection = FieldSelection.parse(FieldSelection.Resource.COMMENT, fields, null);
+            // The version covers every comment write, so one ETag is valid for every page of the thread
+            Optional<String> etag = postQueryService.commentsEtag(postId)
+                    .map(tag -> weakEtag(tag + selection.map(FieldSelection::etagSuffix).orElse("")));
+            if (etag.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(etag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag.get())
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .build();
+            }
+            if (selection.isPresent()) {
+                return postQueryService.findSparseComments(postId, limit, after, before, selection.get())
+                        .<ResponseEntity<?>>map(page -> ResponseEntity.ok()
+                                .eTag(etag.get())
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .body(page))
+                        .orElseGet(() -> ResponseEntity.notFound().build());
+            }
+            return postQueryService.findComments(postId, limit, after, before)
+                    .<ResponseEntity<?>>map(page -> ResponseEntity.ok()
+                            .eTag(etag.get())
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(page))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        } catch (SingleFlight.WaitTimeoutException e) {
+            // The same read is already running and slow; another copy would only add load
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
         } catch (Exception e) {
             logger.error("Error fetching comments: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -228,24 +563,12 @@ public class PostController {
             @PathVariable Long postId,
             @RequestBody Comment commentRequest) {
         try {
-            return postRepository.findById(postId)
-                    .map(post -> {
-                        Comment comment = new Comment(
-                                commentRequest.getUsername() != null ?
-                                        commentRequest.getUsername().trim() : "Anonymous",
-                                commentRequest.getUserImageUrl() != null ?
-                                        commentRequest.getUserImageUrl().trim() :
-                                        "https://randomuser.me/api/portraits/lego/1.jpg",
-                                commentRequest.getContent() != null ?
-                                        commentRequest.getContent().trim() : null,
-                                commentRequest.getImageUrl() != null ?
-                                        commentRequest.getImageUrl().trim() : null,
-                                commentRequest.getVideoUrl() != null ?
-                                        commentRequest.getVideoUrl().trim() : null,
-                                post
-                        );
-                        commentRepository.save(comment);
-                        return ResponseEntity.ok(postRepository.findById(postId).get());
+            return postWriteService.addComment(postId, commentRequest)
+                    .<ResponseEntity<?>>map(created -> {
+                        postCache.invalidatePost(postId);
+                        trendingService.record(postId, TrendingService.Signal.COMMENT);
+                        liveFeed.commentAdded(postId, created.comment());
+                        return ResponseEntity.ok(created);
                     })
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
@@ -258,25 +581,46 @@ public class PostController {
         }
     }
 
+    @PostMapping("/comments/bulk")
+    public ResponseEntity<?> addCommentsBulk(@RequestBody List<NewComment> comments) {
+        try {
+            CommentBatchReport report = postWriteService.addComments(comments);
+            Set<Long> postIds = comments.stream()
+                    .filter(Objects::nonNull)
+                    .map(NewComment::postId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            postCache.invalidatePosts(postIds);
+            postIds.forEach(liveFeed::countersChanged);
+            report.insertedByPost().forEach((postId, inserted) ->
+                    trendingService.record(postId, TrendingService.Signal.COMMENT, inserted));
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                    Map.of("error", "Validation failed",
+                            "message", e.getMessage())
+            );
+        } catch (Exception e) {
+            logger.error("Error bulk adding comments: ", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of(
+                            "error", "Internal Server Error",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+
     @PutMapping("/{postId}/comments/{commentId}")
-    public ResponseEntity<Comment> updateComment(
+    public ResponseEntity<CommentView> updateComment(
             @PathVariable Long postId,
             @PathVariable Long commentId,
             @RequestBody Comment commentRequest) {
         try {
-            if (!postRepository.existsById(postId)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            return commentRepository.findById(commentId)
-                    .map(comment -> {
-                        comment.setContent(commentRequest.getContent() != null ?
-                                commentRequest.getContent().trim() : null);
-                        comment.setImageUrl(commentRequest.getImageUrl() != null ?
-                                commentRequest.getImageUrl().trim() : null);
-                        comment.setVideoUrl(commentRequest.getVideoUrl() != null ?
-                                commentRequest.getVideoUrl().trim() : null);
-                        return ResponseEntity.ok(commentRepository.save(comment));
+            return postWriteService.updateComment(postId, commentId, commentRequest)
+                    .map(savedComment -> {
+                        postCache.invalidatePost(postId);
+                        liveFeed.commentUpdated(postId, savedComment);
+                        return ResponseEntity.ok(savedComment);
                     })
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
@@ -290,21 +634,12 @@ public class PostController {
             @PathVariable Long postId,
             @PathVariable Long commentId) {
         try {
-            if (!postRepository.existsById(postId)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Optional<Comment> commentOpt = commentRepository.findById(commentId);
-            if (commentOpt.isPresent()) {
-                Comment comment = commentOpt.get();
-                if (!comment.getPost().getId().equals(postId)) {
-                    return ResponseEntity.notFound().build();
-                }
-                commentRepository.delete(comment);
+            if (postWriteService.deleteComment(postId, commentId)) {
+                postCache.invalidatePost(postId);
+                liveFeed.commentDeleted(postId, commentId);
                 return ResponseEntity.noContent().build();
-            } else {
-                return ResponseEntity.notFound().build();
             }
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             logger.error("Error deleting comment: ", e);
             return ResponseEntity.internalServerError().build();
@@ -314,18 +649,15 @@ public class PostController {
 
 
     @PostMapping("/{postId}/comments/{commentId}/like")
-    public ResponseEntity<Comment> likeComment(
+    public ResponseEntity<CommentView> likeComment(
             @PathVariable Long postId,
             @PathVariable Long commentId) {
         try {
-            if (!postRepository.existsById(postId)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            return commentRepository.findById(commentId)
+            // One read both checks the comment belongs to the post and supplies the response
+            return postQueryService.findComment(postId, commentId)
                     .map(comment -> {
-                        comment.setLikeCount(comment.getLikeCount() + 1);
-                        return ResponseEntity.ok(commentRepository.save(comment));
+                        counterAggregator.increment(CounterAggregator.Counter.COMMENT_LIKES, commentId, postId);
+                        return ResponseEntity.ok(comment.withLikeCount(comment.likeCount() + 1));
                     })
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
@@ -333,4 +665,4 @@ public class PostController {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+}
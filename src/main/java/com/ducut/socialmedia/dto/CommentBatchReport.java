@@ -0,0 +1,15 @@
+package com.ducut.socialmedia.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batched comment ingest. The accepted rows commit together; rows naming a
+ * missing post are skipped and listed in {@code errors} by their position in the request.
+ * {@code insertedByPost} is for the caller's own bookkeeping and is not part of the response.
+ */
+public record CommentBatchReport(int received, int inserted, int failed, List<String> errors,
+                                 @JsonIgnore Map<Long, Integer> insertedByPost) {
+}
@@ -0,0 +1,15 @@
+package com.ducut.socialmedia.dto;
+
+import java.util.List;
+
+/**
+ * One page of a post's comment thread, oldest first. {@code prevCursor} and {@code nextCursor}
+ * are passed back as {@code before} and {@code after}; each is null at its end of the thread.
+ * {@code totalCount} is the whole thread, read from the post's maintained counter.
+ */
+public record CommentPage<T>(List<T> items, long totalCount, String prevCursor, String nextCursor) {
+
+    public <U> CommentPage<U> withItems(List<U> items) {
+        return new CommentPage<>(items, totalCount, prevCursor, nextCursor);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ducut.socialmedia.dto;
+
+import com.ducut.socialmedia.model.Comment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for a comment. Carries the same JSON fields as {@link Comment} without the
+ * back-reference, so it can be serialized outside a persistence context.
+ */
+public record CommentView(
+        Long id,
+        String username,
+        String userImageUrl,
+        String content,
+        String imageUrl,
+        String videoUrl,
+        LocalDateTime createdAt,
+        int likeCount) {
+
+    public static CommentView from(Comment comment) {
+        return new CommentView(
+                comment.getId(),
+                comment.getUsername(),
+                comment.getUserImageUrl(),
+                comment.getContent(),
+                comment.getImageUrl(),
+                comment.getVideoUrl(),
+                comment.getCreatedAt(),
+                comment.getLikeCount());
+    }
+
+    public CommentView withLikeCount(int likeCount) {
+        return new CommentView(id, username, userImageUrl, content, imageUrl, videoUrl, createdAt, likeCount);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ducut.socialmedia.dto;
+
+/**
+ * Response to adding a comment: the comment itself and the post's comment count after it.
+ */
+public record CreatedComment(CommentView comment, long commentCount) {
+}
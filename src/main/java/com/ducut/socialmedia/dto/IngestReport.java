@@ -0,0 +1,13 @@
+package com.ducut.socialmedia.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a streaming ingest. Each chunk commits on its own, so one bad chunk does not
+ * undo the ones before it.
+ */
+public record IngestReport(long received, long inserted, long failed, List<ChunkResult> chunks) {
+
+    public record ChunkResult(int index, int received, int inserted, int failed, List<String> errors) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.ducut.socialmedia.dto;
+
+/**
+ * One row of a batched comment ingest; {@code postId} names the post it belongs to.
+ */
+public record NewComment(
+        Long postId,
+        String username,
+        String userImageUrl,
+        String content,
+        String imageUrl,
+        String videoUrl) {
+}
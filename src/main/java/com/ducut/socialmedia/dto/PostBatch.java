@@ -0,0 +1,10 @@
+package com.ducut.socialmedia.dto;
+
+import java.util.List;
+
+/**
+ * Posts fetched by id in one request, in the order asked for. Ids that do not exist, or
+ * were deleted, are listed in {@code missing} instead.
+ */
+public record PostBatch(List<PostView> items, List<Long> missing) {
+}
@@ -0,0 +1,48 @@
+package com.ducut.socialmedia.dto;
+
+import com.ducut.socialmedia.model.Post;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model for a post. {@code comments} may be a preview (newest first) rather than the
+ * full thread; {@code commentCount} is always the full count.
+ */
+public record PostView(
+        Long id,
+        String username,
+        String userImageUrl,
+        String content,
+        String imageUrl,
+        String videoUrl,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        int likeCount,
+        int shareCount,
+        long version,
+        long commentCount,
+        List<CommentView> comments) {
+
+    public static PostView from(Post post, long commentCount, List<CommentView> comments) {
+        return new PostView(
+                post.getId(),
+                post.getUsername(),
+                post.getUserImageUrl(),
+                post.getContent(),
+                post.getImageUrl(),
+                post.getVideoUrl(),
+                post.getCreatedAt(),
+                post.getUpdatedAt(),
+                post.getLikeCount(),
+                post.getShareCount(),
+                post.getVersion(),
+                commentCount,
+                comments);
+    }
+
+    public PostView withCounts(int likeCount, int shareCount, List<CommentView> comments) {
+        return new PostView(id, username, userImageUrl, content, imageUrl, videoUrl, createdAt, updatedAt,
+                likeCount, shareCount, version, commentCount, comments);
+    }
+}
@@ -0,0 +1,16 @@
+package com.ducut.socialmedia.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One tap in a batched reaction request. {@code commentId} is only used by
+ * {@code comment_like}, and must belong to {@code postId}.
+ */
+public record Reaction(Type type, Long postId, Long commentId) {
+
+    public enum Type {
+        @JsonProperty("like") LIKE,
+        @JsonProperty("share") SHARE,
+        @JsonProperty("comment_like") COMMENT_LIKE
+    }
+}
@@ -0,0 +1,15 @@
+package com.ducut.socialmedia.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a batched reaction request, one result per reaction in request order. Reactions
+ * naming a missing post or comment are skipped; the rest are applied.
+ */
+public record ReactionReport(int received, int applied, List<Result> results) {
+
+    public enum Status { APPLIED, NOT_FOUND, INVALID }
+
+    public record Result(Reaction.Type type, Long postId, Long commentId, Status status) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.ducut.socialmedia.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a relevance-ranked result list ordered by {@code (rank DESC, id DESC)}.
+ */
+public record SearchCursor(double rank, Long id) {
+
+    public String encode() {
+        // Double.toString round-trips exactly, so the next page resumes at the same key
+        String raw = rank + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = raw.indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new SearchCursor(Double.parseDouble(raw.substring(0, comma)),
+                    Long.parseLong(raw.substring(comma + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
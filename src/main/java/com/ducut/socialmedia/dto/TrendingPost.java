@@ -0,0 +1,11 @@
+package com.ducut.socialmedia.dto;
+
+/**
+ * One row of the trending list. {@code score} is the decayed engagement as of the request; it
+ * is only meaningful relative to the other rows.
+ */
+public record TrendingPost(double score, PostView post) {
+
+    public record Score(Long postId, double score) {
+    }
+}
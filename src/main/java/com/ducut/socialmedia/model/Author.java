@@ -0,0 +1,41 @@
+package com.ducut.socialmedia.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One (username, avatar) pair, stored once and referenced by posts and comments. A missing
+ * value is stored as an empty string so the unique constraint also covers it. Rows are inserted
+ * only by {@code AuthorDictionary}, straight from the sequence, never through this entity.
+ */
+@Entity
+@Table(name = "authors", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_authors_username_image_url", columnNames = {"username", "image_url"})
+})
+public class Author {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq")
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+    @Column(nullable = false, length = 1024)
+    private String imageUrl;
+
+    public Author() {
+    }
+
+    public Author(String username, String imageUrl) {
+        this.username = username;
+        this.imageUrl = imageUrl;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+}
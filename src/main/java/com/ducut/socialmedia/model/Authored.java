@@ -0,0 +1,21 @@
+package com.ducut.socialmedia.model;
+
+/**
+ * Rows that reference an {@link Author} by id but expose the username and avatar as plain
+ * fields. Method names avoid the bean convention so Jackson does not serialize them.
+ */
+public interface Authored {
+    Long getAuthorId();
+
+    void setAuthorId(Long authorId);
+
+    String getUsername();
+
+    String getUserImageUrl();
+
+    /** True when the author id is known but username and avatar have not been filled in yet. */
+    boolean needsAuthor();
+
+    /** Fills in username and avatar from the author row without touching the author id. */
+    void applyAuthor(String username, String userImageUrl);
+}
@@ -1,22 +1,43 @@
 package com.ducut.socialmedia.model;
 
+import com.ducut.socialmedia.service.AuthorListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "comments")
-public class Comment {
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_post_created_at_id", columnList = "post_id, created_at, id")
+})
+@EntityListeners(AuthorListener.class)
+public class Comment implements Authored {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so bulk inserts can be JDBC-batched; IDENTITY forces one round-trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = 50)
     private Long id;
 
+    // Name and avatar live in authors; filled in on load, turned back into authorId on save
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+    // Never read; maps the foreign key so generated schemas match the migrations
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_comments_author"))
+    private Author author;
+    @Transient
     private String username;
+    @Transient
     private String userImageUrl;
+    @Transient
+    private boolean authorResolved;
+
     private String content;
     private String imageUrl;
     private String videoUrl;
     private LocalDateTime createdAt;
+    @Column(updatable = false)
     private int likeCount = 0;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -42,9 +63,24 @@ public class Comment {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
+    public void setUsername(String username) {
+        this.username = username;
+        this.authorId = null;
+    }
     public String getUserImageUrl() { return userImageUrl; }
-    public void setUserImageUrl(String userImageUrl) { this.userImageUrl = userImageUrl; }
+    public void setUserImageUrl(String userImageUrl) {
+        this.userImageUrl = userImageUrl;
+        this.authorId = null;
+    }
+    @JsonIgnore
+    public Long getAuthorId() { return authorId; }
+    public void setAuthorId(Long authorId) { this.authorId = authorId; }
+    public boolean needsAuthor() { return authorId != null && !authorResolved; }
+    public void applyAuthor(String username, String userImageUrl) {
+        this.username = username;
+        this.userImageUrl = userImageUrl;
+        this.authorResolved = true;
+    }
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
     public String getImageUrl() { return imageUrl; }
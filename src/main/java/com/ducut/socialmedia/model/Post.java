@@ -1,20 +1,44 @@
 package com.ducut.socialmedia.model;
 
+import com.ducut.socialmedia.service.AuthorListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "posts")
-public class Post {
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_at_id", columnList = "created_at DESC, id DESC")
+})
+// Posts waiting for PostPurgeService are invisible to every entity load and JPQL query
+@SQLRestriction("deleted_at is null")
+@EntityListeners(AuthorListener.class)
+public class Post implements Authored {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so bulk inserts can be JDBC-batched; IDENTITY forces one round-trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
+    // Name and avatar live in authors; filled in on load, turned back into authorId on save
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+    // Never read; maps the foreign key so generated schemas match the migrations
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_posts_author"))
+    private Author author;
+    @Transient
     private String username;
+    @Transient
     private String userImageUrl;
+    @Transient
+    private boolean authorResolved;
+
     private String content;
     @Column(length = 2048)
     private String imageUrl;
@@ -22,8 +46,23 @@ public class Post {
     private String videoUrl;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Counters only change through relative UPDATEs (see CounterAggregator), never via entity saves
+    @Column(updatable = false)
     private int likeCount = 0;
+    @Column(updatable = false)
     private int shareCount = 0;
+    // Bumped by set-based UPDATEs on every change to the post, its comments or its counters; feeds ETags
+    @Column(updatable = false)
+    @ColumnDefault("0")
+    private long version = 0;
+    // Maintained by the comment write paths in the same transaction; saves never touch it
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long commentCount = 0;
+
+    // Set when deletion is handed to the background purge; saves never touch it
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
 
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
@@ -48,10 +87,28 @@ public class Post {
     public void setId(Long id) { this.id = id; }
 
     public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
+    public void setUsername(String username) {
+        this.username = username;
+        this.authorId = null;
+    }
 
     public String getUserImageUrl() { return userImageUrl; }
-    public void setUserImageUrl(String userImageUrl) { this.userImageUrl = userImageUrl; }
+    public void setUserImageUrl(String userImageUrl) {
+        this.userImageUrl = userImageUrl;
+        this.authorId = null;
+    }
+
+    @JsonIgnore
+    public Long getAuthorId() { return authorId; }
+    public void setAuthorId(Long authorId) { this.authorId = authorId; }
+
+    public boolean needsAuthor() { return authorId != null && !authorResolved; }
+
+    public void applyAuthor(String username, String userImageUrl) {
+        this.username = username;
+        this.userImageUrl = userImageUrl;
+        this.authorResolved = true;
+    }
 
     public String getContent() { return content; }
     public void setContent(String content) {
@@ -83,6 +140,18 @@ public class Post {
     public int getShareCount() { return shareCount; }
     public void setShareCount(int shareCount) { this.shareCount = shareCount; }
 
+    @JsonIgnore
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    @JsonIgnore
+    public long getCommentCount() { return commentCount; }
+    public void setCommentCount(long commentCount) { this.commentCount = commentCount; }
+
+    @JsonIgnore
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+
     public List<Comment> getComments() { return comments; }
     public void setComments(List<Comment> comments) { this.comments = comments; }
 
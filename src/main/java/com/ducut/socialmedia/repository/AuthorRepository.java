@@ -0,0 +1,7 @@
+package com.ducut.socialmedia.repository;
+
+import com.ducut.socialmedia.model.Author;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AuthorRepository extends JpaRepository<Author, Long> {
+}
@@ -1,9 +1,62 @@
 package com.ducut.socialmedia.repository;
 
 import com.ducut.socialmedia.model.Comment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostId(Long postId);
-}
\ No newline at end of file
+
+    Optional<Comment> findByIdAndPostId(Long id, Long postId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Comment c where c.id = :id and c.post.id = :postId")
+    int deleteFromPost(@Param("id") Long id, @Param("postId") Long postId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Comment c where c.post.id = :postId")
+    int deleteAllFromPost(@Param("postId") Long postId);
+
+    // Comment threads in (createdAt, id) order, paged by keyset over idx_comments_post_created_at_id
+    @Query("select c from Comment c where c.post.id = :postId order by c.createdAt asc, c.id asc")
+    List<Comment> findThreadStart(@Param("postId") Long postId, Limit limit);
+
+    @Query("select c from Comment c where c.post.id = :postId and (c.createdAt, c.id) > (:createdAt, :id) " +
+            "order by c.createdAt asc, c.id asc")
+    List<Comment> findThreadAfter(@Param("postId") Long postId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Limit limit);
+
+    // Newest first; callers reverse the page
+    @Query("select c from Comment c where c.post.id = :postId and (c.createdAt, c.id) < (:createdAt, :id) " +
+            "order by c.createdAt desc, c.id desc")
+    List<Comment> findThreadBefore(@Param("postId") Long postId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Limit limit);
+
+    // Whole threads for a batch of posts, in one round-trip
+    @Query("select c from Comment c where c.post.id in :postIds order by c.createdAt asc, c.id asc")
+    List<Comment> findByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Newest N comments for every post in the batch, in one round-trip
+    @Query(value = "select ranked.* from (" +
+            "select c.*, row_number() over (partition by c.post_id order by c.created_at desc, c.id desc) as rn " +
+            "from comments c where c.post_id in (:postIds)) ranked " +
+            "where ranked.rn <= :perPost order by ranked.post_id, ranked.rn",
+            nativeQuery = true)
+    List<Comment> findLatestByPostIds(@Param("postIds") Collection<Long> postIds,
+                                      @Param("perPost") int perPost);
+}
@@ -1,12 +1,66 @@
 package com.ducut.socialmedia.repository;
 
 import com.ducut.socialmedia.model.Post;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findAllByOrderByCreatedAtDesc();
-    List<Post> findByContentContainingIgnoreCase(String content);
-}
\ No newline at end of file
+public interface PostRepository extends JpaRepository<Post, Long>, PostSearchRepository {
+    // Feed head and keyset continuation; both walk idx_posts_created_at_id
+    List<Post> findAllByOrderByCreatedAtDescIdDesc(Limit limit);
+
+    @Query("select p from Post p where (p.createdAt, p.id) < (:createdAt, :id) " +
+            "order by p.createdAt desc, p.id desc")
+    List<Post> findFeedPageBefore(@Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") Long id,
+                                  Limit limit);
+
+    // Unindexed substring match, only for databases without the content_tsv column (H2 in tests)
+    @Query("select p from Post p where lower(p.content) like lower(concat('%', :query, '%')) " +
+            "and p.id < :beforeId order by p.id desc")
+    List<Post> findContentMatchesBefore(@Param("query") String query,
+                                        @Param("beforeId") Long beforeId,
+                                        Limit limit);
+
+    @Query("select p.version from Post p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select p.commentCount from Post p where p.id = :id")
+    Optional<Long> findCommentCountById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1 where p.id = :id and p.deletedAt is null")
+    int bumpVersion(@Param("id") Long id);
+
+    // Keeps comment_count in step with a comment insert or delete; also a version bump
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + :delta, p.version = p.version + 1 " +
+            "where p.id = :id and p.deletedAt is null")
+    int adjustCommentCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Post p where p.id = :id")
+    int deleteWithoutCascade(@Param("id") Long id);
+
+    // Hides the post at once; PostPurgeService removes the rows later
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.deletedAt = :deletedAt, p.version = p.version + 1 where p.id = :id and p.deletedAt is null")
+    int markDeleted(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Full recount, for backfilling the column and for data written around the service layer
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.commentCount = (select count(c) from Comment c where c.post = p)")
+    int recountComments();
+}
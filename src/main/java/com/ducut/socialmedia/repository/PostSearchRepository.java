@@ -0,0 +1,19 @@
+package com.ducut.socialmedia.repository;
+
+import java.util.List;
+
+/**
+ * Full-text search over post content backed by the {@code content_tsv} GIN index
+ * (created by the {@code V6__content_search} migration; see {@link com.ducut.socialmedia.config.PostgresSchemaSupport}).
+ */
+public interface PostSearchRepository {
+
+    record SearchHit(Long id, double rank) {
+    }
+
+    /**
+     * Matches ordered by {@code (rank DESC, id DESC)}, starting strictly after
+     * {@code (afterRank, afterId)} when both are given.
+     */
+    List<SearchHit> searchContent(String query, Double afterRank, Long afterId, int limit);
+}
@@ -0,0 +1,33 @@
+package com.ducut.socialmedia.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+class PostSearchRepositoryImpl implements PostSearchRepository {
+    private static final String RANK = "ts_rank(p.content_tsv, q)::float8";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<SearchHit> searchContent(String query, Double afterRank, Long afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("limit", limit);
+        String keyset = "";
+        if (afterRank != null && afterId != null) {
+            keyset = " AND (" + RANK + ", p.id) < (:afterRank, :afterId)";
+            params.addValue("afterRank", afterRank).addValue("afterId", afterId);
+        }
+        return jdbcTemplate.query(
+                "SELECT p.id, " + RANK + " AS rank " +
+                        "FROM posts p, websearch_to_tsquery('english', :query) q " +
+                        "WHERE p.content_tsv @@ q AND p.deleted_at IS NULL" + keyset + " " +
+                        "ORDER BY rank DESC, p.id DESC LIMIT :limit",
+                params,
+                (rs, rowNum) -> new SearchHit(rs.getLong("id"), rs.getDouble("rank")));
+    }
+}
@@ -0,0 +1,180 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.model.Author;
+import com.ducut.socialmedia.model.Authored;
+import com.ducut.socialmedia.repository.AuthorRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory dictionary between (username, avatar) pairs and {@link Author} ids.
+ *
+ * <p>Writes turn the pair into an id: a cache hit costs nothing, a miss inserts the author if it
+ * is new and reads its id back. Both statements run on the caller's own connection and outside
+ * any cache compute, so a writer never waits for a second pooled connection and never blocks
+ * lookups of other keys. An author inserted by the current transaction is cached only once it
+ * commits, so a rolled-back post never leaves a cached id pointing at nothing. Reads turn ids
+ * back into names; whatever a batch of rows needs beyond the cache is loaded with one query.
+ * Authors are few and immutable, so both caches stay hot and most requests never touch the
+ * authors table.
+ */
+@Service
+public class AuthorDictionary {
+    record Key(String username, String imageUrl) {
+        static Key of(String username, String imageUrl) {
+            return new Key(username != null ? username : "", imageUrl != null ? imageUrl : "");
+        }
+    }
+
+    // Inserts through the unique constraint instead of look-then-insert, so racing writers need no retry
+    private static final String INSERT_SQL =
+            "INSERT INTO authors (id, username, image_url) VALUES (nextval('authors_seq'), ?, ?) ON CONFLICT DO NOTHING";
+    private static final String SELECT_ID_SQL = "SELECT id FROM authors WHERE username = ? AND image_url = ?";
+
+    private final AuthorRepository authorRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Key, Long> ids;
+    private final Cache<Long, Key> keys;
+
+    public AuthorDictionary(AuthorRepository authorRepository,
+                            JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.cache.authors.max-size:100000}") long maxSize) {
+        this.authorRepository = authorRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ids = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.keys = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ids, "authorIds");
+        CaffeineCacheMetrics.monitor(meterRegistry, keys, "authors");
+    }
+
+    /** Sets the author id from the row's username and avatar, unless it already has one. */
+    public void assign(Authored row) {
+        if (row.getAuthorId() == null) {
+            row.setAuthorId(idFor(row.getUsername(), row.getUserImageUrl()));
+            row.applyAuthor(row.getUsername(), row.getUserImageUrl());
+        }
+    }
+
+    public Long idFor(String username, String imageUrl) {
+        Key key = Key.of(username, imageUrl);
+        Long id = ids.getIfPresent(key);
+        return id != null ? id : findOrCreate(key);
+    }
+
+    /** Fills in names from the cache only; rows it cannot fill are left for {@link #resolve}. */
+    public void resolveCached(Authored row) {
+        if (row.needsAuthor()) {
+            Key key = keys.getIfPresent(row.getAuthorId());
+            if (key != null) {
+                apply(row, key);
+            }
+        }
+    }
+
+    /** Fills in names for every row, loading the authors the cache does not have in one query. */
+    public void resolve(Collection<? extends Authored> rows) {
+        Set<Long> missing = new HashSet<>();
+        for (Authored row : rows) {
+            if (row.needsAuthor()) {
+                missing.add(row.getAuthorId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, Key> found = keys.getAll(missing, authorIds -> {
+            Map<Long, Key> loaded = new HashMap<>();
+            for (Author author : authorRepository.findAllById(List.copyOf(authorIds))) {
+                loaded.put(author.getId(), new Key(author.getUsername(), author.getImageUrl()));
+            }
+            return loaded;
+        });
+        for (Authored row : rows) {
+            if (row.needsAuthor()) {
+                Key key = found.get(row.getAuthorId());
+                if (key != null) {
+                    apply(row, key);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        ids.invalidateAll();
+        keys.invalidateAll();
+    }
+
+    private static void apply(Authored row, Key key) {
+        row.applyAuthor(key.username().isEmpty() ? null : key.username(),
+                key.imageUrl().isEmpty() ? null : key.imageUrl());
+    }
+
+    private Long findOrCreate(Key key) {
+        Map<Key, Long> pending = TransactionSynchronizationManager.isSynchronizationActive() ? pending() : null;
+        if (pending != null && pending.containsKey(key)) {
+            return pending.get(key);
+        }
+        int inserted = jdbcTemplate.update(INSERT_SQL, key.username(), key.imageUrl());
+        Long id = jdbcTemplate.queryForObject(SELECT_ID_SQL, Long.class, key.username(), key.imageUrl());
+        if (inserted > 0 && pending != null) {
+            pending.put(key, id);
+        } else {
+            remember(key, id);
+        }
+        return id;
+    }
+
+    private void remember(Key key, Long id) {
+        ids.put(key, id);
+        keys.put(id, key);
+    }
+
+    /** Authors inserted by the current transaction, handed to the caches once it commits. */
+    @SuppressWarnings("unchecked")
+    private Map<Key, Long> pending() {
+        Map<Key, Long> pending = (Map<Key, Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Key, Long> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // A REQUIRES_NEW transaction cannot see these rows, so it must not see the map either
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(AuthorDictionary.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(AuthorDictionary.this, created);
+                }
+
+                @Override
+                public void afterCommit() {
+                    created.forEach(AuthorDictionary.this::remember);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AuthorDictionary.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.model.Authored;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link Authored} rows in step with the author dictionary on every persist and load,
+ * including rows saved straight through a repository.
+ */
+@Component
+public class AuthorListener {
+    // Looked up lazily: Hibernate builds its listeners before the transaction manager exists
+    private final ObjectProvider<AuthorDictionary> authorDictionary;
+
+    public AuthorListener(ObjectProvider<AuthorDictionary> authorDictionary) {
+        this.authorDictionary = authorDictionary;
+    }
+
+    @PrePersist
+    public void beforePersist(Authored row) {
+        authorDictionary.getObject().assign(row);
+    }
+
+    @PostLoad
+    public void afterLoad(Authored row) {
+        authorDictionary.getObject().resolveCached(row);
+    }
+}
@@ -0,0 +1,357 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.PostView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.invoke.VarHandle;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind aggregator for like/share taps.
+ *
+ * <p>Taps only touch a per-id cell in memory. A scheduled flush drains the cells and applies
+ * the deltas as one batch of relative {@code UPDATE ... SET x = x + ?} statements, so concurrent
+ * taps are never lost and no entity is loaded to record them.
+ *
+ * <p>Reads add the unflushed delta via the {@code applyPending} methods. A flush moves deltas
+ * from memory into the database, so a read that overlaps one could count a delta twice or not
+ * at all; flushes are bracketed by a sequence number (odd while running) and a read that
+ * overlapped one re-reads the counter columns once the flush is done.
+ */
+@Service
+public class CounterAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(CounterAggregator.class);
+    private static final int MAX_READ_ATTEMPTS = 3;
+    private static final long MAX_FLUSH_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    public enum Counter {
+        POST_LIKES("UPDATE posts SET like_count = like_count + ?, updated_at = ?, version = version + 1 WHERE id = ?"),
+        POST_SHARES("UPDATE posts SET share_count = share_count + ?, updated_at = ?, version = version + 1 WHERE id = ?"),
+        COMMENT_LIKES("UPDATE comments SET like_count = like_count + ? WHERE id = ?");
+
+        private final String sql;
+
+        Counter(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private final Map<Counter, ConcurrentHashMap<Long, Cell>> pending = new EnumMap<>(Counter.class);
+    // Comment likes summed per owning post, only so a post's fingerprint can see them
+    private final ConcurrentHashMap<Long, Cell> commentLikesByPost = new ConcurrentHashMap<>();
+    private final AtomicLong flushSequence = new AtomicLong();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public CounterAggregator() {
+        for (Counter counter : Counter.values()) {
+            pending.put(counter, new ConcurrentHashMap<>());
+        }
+    }
+
+    /** Post counters; the post is its own owner. */
+    public void increment(Counter counter, Long id) {
+        add(counter, id, id, 1);
+    }
+
+    /** {@code postId} is the post the counted row belongs to, used to tell caches what changed. */
+    public void increment(Counter counter, Long id, Long postId) {
+        add(counter, id, postId, 1);
+    }
+
+    public void add(Counter counter, Long id, Long postId, long delta) {
+        addTo(pending.get(counter), id, postId, delta);
+        if (counter == Counter.COMMENT_LIKES) {
+            addTo(commentLikesByPost, postId, postId, delta);
+        }
+    }
+
+    private static void addTo(ConcurrentHashMap<Long, Cell> cells, Long id, Long postId, long delta) {
+        while (delta != 0) {
+            Cell cell = cells.computeIfAbsent(id, key -> new Cell(postId));
+            cell.add(delta);
+            // Orders the add before the check; LongAdder only publishes with release semantics
+            VarHandle.fullFence();
+            // Retired while we held it: the flush's last drain may have missed this delta, so
+            // whatever is left moves to the fresh cell that replaced it
+            delta = cell.retired ? cell.sumThenReset() : 0;
+        }
+    }
+
+    /** Unflushed delta for one id. */
+    public long pendingDelta(Counter counter, Long id) {
+        Cell cell = pending.get(counter).get(id);
+        return cell != null ? cell.sum() : 0;
+    }
+
+    /** Take before reading counter columns and pass to {@code applyPending} afterwards. */
+    public long readStamp() {
+        return flushSequence.get();
+    }
+
+    /**
+     * Runs a read of database state that must be paired with {@link #fingerprint}, retrying it
+     * if a flush overlapped.
+     */
+    public <T> T readStable(Supplier<T> read) {
+        long stamp = readStamp();
+        for (int attempt = 1; ; attempt++) {
+            T result = read.get();
+            if (isStable(stamp) || attempt == MAX_READ_ATTEMPTS) {
+                return result;
+            }
+            stamp = awaitFlush();
+        }
+    }
+
+    /**
+     * Unflushed likes, shares and comment likes for a post. Within one database version these
+     * only grow, so together with the version they identify what a reader would see.
+     */
+    public String fingerprint(Long postId) {
+        Cell commentLikes = commentLikesByPost.get(postId);
+        return pendingDelta(Counter.POST_LIKES, postId) + "."
+                + pendingDelta(Counter.POST_SHARES, postId) + "."
+                + (commentLikes != null ? commentLikes.sum() : 0);
+    }
+
+    public PostView applyPending(PostView view, long stamp) {
+        return applyPending(List.of(view), stamp).get(0);
+    }
+
+    public List<PostView> applyPending(List<PostView> views, long stamp) {
+        List<PostView> current = views;
+        for (int attempt = 1; ; attempt++) {
+            List<PostView> merged = current.stream().map(this::merge).toList();
+            if (isStable(stamp) || attempt == MAX_READ_ATTEMPTS) {
+                return merged;
+            }
+            stamp = awaitFlush();
+            current = reloadPostCounts(current);
+        }
+    }
+
+    public CommentView applyPending(CommentView view, long stamp) {
+        return applyPendingToComments(List.of(view), stamp).get(0);
+    }
+
+    public List<CommentView> applyPendingToComments(List<CommentView> views, long stamp) {
+        List<CommentView> current = views;
+        for (int attempt = 1; ; attempt++) {
+            List<CommentView> merged = current.stream().map(this::merge).toList();
+            if (isStable(stamp) || attempt == MAX_READ_ATTEMPTS) {
+                return merged;
+            }
+            stamp = awaitFlush();
+            current = reloadCommentCounts(current);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:500}")
+    public synchronized void flush() {
+        // Nothing moves, so readers have no reason to re-read; skipping keeps idle reads at one pass
+        if (commentLikesByPost.isEmpty() && pending.values().stream().allMatch(Map::isEmpty)) {
+            return;
+        }
+        flushSequence.incrementAndGet();
+        try {
+            Set<Long> postIds = new HashSet<>();
+            // Reset first: a failed flush below re-adds its deltas, and those must stay visible here
+            drainIdle(commentLikesByPost);
+            for (Counter counter : Counter.values()) {
+                flush(counter, postIds);
+            }
+            // Published before the sequence turns even, so readers never pair stale cached rows with a drained delta
+            if (!postIds.isEmpty()) {
+                eventPublisher.publishEvent(new CountersFlushedEvent(postIds));
+            }
+        } finally {
+            flushSequence.incrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flush(Counter counter, Set<Long> flushedPostIds) {
+        ConcurrentHashMap<Long, Cell> cells = pending.get(counter);
+        Map<Long, Long> drained = new TreeMap<>();
+        Map<Long, Long> owners = new HashMap<>();
+        for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                // Quiet since the last flush; drop the cell so the map tracks only active ids
+                delta = entry.getValue().retire(cells, entry.getKey());
+            }
+            if (delta != 0) {
+                drained.put(entry.getKey(), delta);
+                owners.put(entry.getKey(), entry.getValue().postId);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        // Sorted ids keep lock order stable across concurrent flushes from other instances
+        List<Object[]> batch = new ArrayList<>(drained.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        drained.forEach((id, delta) -> batch.add(counter == Counter.COMMENT_LIKES
+                ? new Object[]{delta, id}
+                : new Object[]{delta, now, id}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(counter.sql, batch);
+                if (counter == Counter.COMMENT_LIKES) {
+                    // Comments are part of the post's representation, so its version moves too
+                    jdbcTemplate.batchUpdate("UPDATE posts SET version = version + 1 WHERE id = ?",
+                            new TreeSet<>(owners.values()).stream().map(id -> new Object[]{id}).toList());
+                }
+            });
+            flushedPostIds.addAll(owners.values());
+        } catch (Exception e) {
+            logger.error("Error flushing {} counter deltas, will retry: ", counter, e);
+            // Hand the deltas back to the cells so the next flush retries them
+            drained.forEach((id, delta) -> add(counter, id, owners.get(id), delta));
+        }
+    }
+
+    private static void drainIdle(ConcurrentHashMap<Long, Cell> cells) {
+        for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+            if (entry.getValue().sumThenReset() == 0) {
+                entry.getValue().retire(cells, entry.getKey());
+            }
+        }
+    }
+
+    private boolean isStable(long stamp) {
+        return (stamp & 1) == 0 && flushSequence.get() == stamp;
+    }
+
+    private long awaitFlush() {
+        long deadline = System.nanoTime() + MAX_FLUSH_WAIT_NANOS;
+        long stamp;
+        while (((stamp = flushSequence.get()) & 1) != 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(100_000);
+        }
+        return stamp;
+    }
+
+    private PostView merge(PostView view) {
+        long likes = pendingDelta(Counter.POST_LIKES, view.id());
+        long shares = pendingDelta(Counter.POST_SHARES, view.id());
+        List<CommentView> comments = view.comments().stream().map(this::merge).toList();
+        return view.withCounts((int) (view.likeCount() + likes), (int) (view.shareCount() + shares), comments);
+    }
+
+    private CommentView merge(CommentView view) {
+        long likes = pendingDelta(Counter.COMMENT_LIKES, view.id());
+        return likes == 0 ? view : view.withLikeCount((int) (view.likeCount() + likes));
+    }
+
+    private List<PostView> reloadPostCounts(List<PostView> views) {
+        if (views.isEmpty()) {
+            return views;
+        }
+        Map<Long, int[]> counts = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT id, like_count, share_count FROM posts WHERE id IN (:ids)",
+                Map.of("ids", views.stream().map(PostView::id).toList()),
+                (RowCallbackHandler) rs -> counts.put(rs.getLong(1), new int[]{rs.getInt(2), rs.getInt(3)}));
+        // Comments of every post in one query, not one per post
+        Map<Long, Integer> commentCounts = loadCommentCounts(
+                views.stream().flatMap(view -> view.comments().stream()).toList());
+        List<PostView> reloaded = new ArrayList<>(views.size());
+        for (PostView view : views) {
+            int[] row = counts.getOrDefault(view.id(), new int[]{view.likeCount(), view.shareCount()});
+            reloaded.add(view.withCounts(row[0], row[1], withCommentCounts(view.comments(), commentCounts)));
+        }
+        return reloaded;
+    }
+
+    private List<CommentView> reloadCommentCounts(List<CommentView> views) {
+        return withCommentCounts(views, loadCommentCounts(views));
+    }
+
+    private Map<Long, Integer> loadCommentCounts(List<CommentView> views) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (!views.isEmpty()) {
+            namedParameterJdbcTemplate.query(
+                    "SELECT id, like_count FROM comments WHERE id IN (:ids)",
+                    Map.of("ids", views.stream().map(CommentView::id).toList()),
+                    (RowCallbackHandler) rs -> counts.put(rs.getLong(1), rs.getInt(2)));
+        }
+        return counts;
+    }
+
+    private static List<CommentView> withCommentCounts(List<CommentView> views, Map<Long, Integer> counts) {
+        return views.stream()
+                .map(view -> view.withLikeCount(counts.getOrDefault(view.id(), view.likeCount())))
+                .toList();
+    }
+
+    /**
+     * Per-id delta, striped like any {@link LongAdder} so taps on one viral post do not all
+     * contend on a single word. A quiet id costs one base field; stripes are only added once
+     * taps actually collide.
+     *
+     * <p>Striping gives up the single CAS that used to retire an idle cell, so retiring is done
+     * in two steps instead. The flush removes the cell, marks it retired and drains it once
+     * more. A tap that already held the cell checks the mark after adding: if it is set, the
+     * tap moves whatever that last drain missed to the replacement cell. Every delta is picked
+     * up by exactly one of the two drains.
+     */
+    private static final class Cell extends LongAdder {
+        private final Long postId;
+        private volatile boolean retired;
+
+        Cell(Long postId) {
+            this.postId = postId;
+        }
+
+        /** Removes the cell and returns any delta that arrived after it was last drained. */
+        long retire(ConcurrentHashMap<Long, Cell> cells, Long id) {
+            cells.remove(id, this);
+            retired = true;
+            return sumThenReset();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ducut.socialmedia.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link CounterAggregator} after a flush commits, naming every post whose own
+ * counters or whose comments' counters changed in the database.
+ */
+public record CountersFlushedEvent(Set<Long> postIds) {
+}
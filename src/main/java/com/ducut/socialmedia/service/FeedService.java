@@ -0,0 +1,197 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.config.ReplicaRouting;
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.CursorPage;
+import com.ducut.socialmedia.dto.PageCursor;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.CommentRepository;
+import com.ducut.socialmedia.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds feed pages as {@link PostView}s. A page costs at most two statements whatever its
+ * size: the posts (which carry their comment counts) and the newest comments for all of them at once.
+ */
+@Service
+public class FeedService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_PREVIEW_COMMENTS = 3;
+    public static final int MAX_PREVIEW_COMMENTS = 20;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private AuthorDictionary authorDictionary;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate readOnlyTx;
+    private final SingleFlight<PostCache.FeedHeadKey, CursorPage<PostView>> feedHeadLoads;
+
+    public FeedService(PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.singleflight.max-wait:2s}") Duration maxWait) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.feedHeadLoads = new SingleFlight<>("feedHead", maxWait, meterRegistry);
+    }
+
+    public CursorPage<PostView> getFeedPage(int limit, String before, int previewComments) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int preview = Math.max(0, Math.min(previewComments, MAX_PREVIEW_COMMENTS));
+        long stamp = counterAggregator.readStamp();
+
+        CursorPage<PostView> page;
+        if (before == null || before.isBlank()) {
+            PostCache.FeedHeadKey key = new PostCache.FeedHeadKey(pageSize, preview);
+            CursorPage<PostView> cached = postCache.peekFeedHead(key);
+            page = cached != null
+                    ? cached
+                    : feedHeadLoads.execute(key, () -> postCache.loadFeedHead(key,
+                            () -> ReplicaRouting.onPrimary(
+                                    () -> readOnlyTx.execute(status -> loadPage(pageSize, null, preview)))));
+        } else {
+            // Decode outside the transaction so a bad cursor never costs a connection
+            PageCursor cursor = PageCursor.decode(before);
+            page = readOnlyTx.execute(status -> loadPage(pageSize, cursor, preview));
+        }
+        return new CursorPage<>(counterAggregator.applyPending(page.items(), stamp), page.nextCursor());
+    }
+
+    /**
+     * A feed page with only the selected fields. Selects just their columns, so it bypasses the
+     * feed-head cache, which holds full views; comment previews are added only when included.
+     */
+    public CursorPage<Map<String, Object>> getSparseFeedPage(int limit, String before, int previewComments,
+                                                            FieldSelection selection) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int preview = selection.includesComments() ? Math.max(0, Math.min(previewComments, MAX_PREVIEW_COMMENTS)) : 0;
+        PageCursor cursor = before == null || before.isBlank() ? null : PageCursor.decode(before);
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(selection.selectList("id", "created_at"))
+                .append(" FROM posts WHERE deleted_at IS NULL");
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", pageSize + 1);
+        if (cursor != null) {
+            sql.append(" AND (created_at, id) < (:createdAt, :id)");
+            params.addValue("createdAt", cursor.createdAt()).addValue("id", cursor.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+
+        // Counter columns and pending deltas are read together and retried if a flush lands in between
+        return counterAggregator.readStable(() -> readOnlyTx.execute(status -> {
+            List<SparseRow> rows = namedParameterJdbcTemplate.query(sql.toString(), params, SparseRow.mapper(selection));
+            String nextCursor = null;
+            if (rows.size() > pageSize) {
+                rows = rows.subList(0, pageSize);
+                nextCursor = rows.get(pageSize - 1).cursor();
+            }
+            authorDictionary.resolve(rows);
+            for (SparseRow row : rows) {
+                row.addPending("likeCount", counterAggregator.pendingDelta(CounterAggregator.Counter.POST_LIKES, row.id()));
+                row.addPending("shareCount", counterAggregator.pendingDelta(CounterAggregator.Counter.POST_SHARES, row.id()));
+            }
+            if (selection.includesComments()) {
+                attachPreviews(rows, preview);
+            }
+            return new CursorPage<>(rows.stream().map(SparseRow::values).toList(), nextCursor);
+        }));
+    }
+
+    private void attachPreviews(List<SparseRow> rows, int preview) {
+        Map<Long, List<CommentView>> latest = new HashMap<>();
+        if (preview > 0 && !rows.isEmpty()) {
+            List<Comment> comments = commentRepository.findLatestByPostIds(
+                    rows.stream().map(SparseRow::id).toList(), preview);
+            authorDictionary.resolve(comments);
+            for (Comment comment : comments) {
+                CommentView view = CommentView.from(comment);
+                long pending = counterAggregator.pendingDelta(CounterAggregator.Counter.COMMENT_LIKES, view.id());
+                latest.computeIfAbsent(comment.getPost().getId(), id -> new ArrayList<>())
+                        .add(view.withLikeCount((int) (view.likeCount() + pending)));
+            }
+        }
+        for (SparseRow row : rows) {
+            row.put("comments", latest.getOrDefault(row.id(), List.of()));
+        }
+    }
+
+    private CursorPage<PostView> loadPage(int pageSize, PageCursor cursor, int preview) {
+        // Fetch one extra row so we know whether another page exists
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Post> posts;
+        if (cursor == null) {
+            posts = postRepository.findAllByOrderByCreatedAtDescIdDesc(fetch);
+        } else {
+            posts = postRepository.findFeedPageBefore(cursor.createdAt(), cursor.id(), fetch);
+        }
+
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            Post last = posts.get(pageSize - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(toViews(posts, preview), nextCursor);
+    }
+
+    /**
+     * Converts posts to views with up to {@code preview} newest comments each, using one batch
+     * query keyed by post id instead of touching the lazy collections.
+     */
+    List<PostView> toViews(List<Post> posts, int preview) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        List<Long> withComments = posts.stream()
+                .filter(post -> post.getCommentCount() > 0)
+                .map(Post::getId)
+                .toList();
+
+        authorDictionary.resolve(posts);
+        Map<Long, List<CommentView>> latest = new HashMap<>();
+        if (preview > 0 && !withComments.isEmpty()) {
+            List<Comment> comments = commentRepository.findLatestByPostIds(withComments, preview);
+            authorDictionary.resolve(comments);
+            for (Comment comment : comments) {
+                latest.computeIfAbsent(comment.getPost().getId(), id -> new ArrayList<>())
+                        .add(CommentView.from(comment));
+            }
+        }
+
+        List<PostView> views = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            views.add(PostView.from(post, post.getCommentCount(), latest.getOrDefault(post.getId(), List.of())));
+        }
+        return views;
+    }
+}
@@ -0,0 +1,140 @@
+package com.ducut.socialmedia.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A sparse fieldset from {@code ?fields=} and {@code ?include=}. Names are the JSON field names
+ * of {@link com.ducut.socialmedia.dto.PostView} and {@link com.ducut.socialmedia.dto.CommentView};
+ * each maps to the one column it is read from, so unrequested columns (long media URLs above all)
+ * are never selected. Unknown names are rejected before any query runs.
+ */
+public final class FieldSelection {
+    public static final String INCLUDE_COMMENTS = "comments";
+
+    public enum Resource {
+        POST(List.of("id", "username", "userImageUrl", "content", "imageUrl", "videoUrl",
+                "createdAt", "updatedAt", "likeCount", "shareCount", "version", "commentCount"), true),
+        COMMENT(List.of("id", "username", "userImageUrl", "content", "imageUrl", "videoUrl",
+                "createdAt", "likeCount"), false);
+
+        private final List<String> fields;
+        private final boolean hasComments;
+
+        Resource(List<String> fields, boolean hasComments) {
+            this.fields = fields;
+            this.hasComments = hasComments;
+        }
+    }
+
+    // Posts and comments name their shared columns alike; username and avatar both come from author_id
+    private static final Map<String, String> COLUMNS = Map.ofEntries(
+            Map.entry("id", "id"),
+            Map.entry("username", "author_id"),
+            Map.entry("userImageUrl", "author_id"),
+            Map.entry("content", "content"),
+            Map.entry("imageUrl", "image_url"),
+            Map.entry("videoUrl", "video_url"),
+            Map.entry("createdAt", "created_at"),
+            Map.entry("updatedAt", "updated_at"),
+            Map.entry("likeCount", "like_count"),
+            Map.entry("shareCount", "share_count"),
+            Map.entry("version", "version"),
+            Map.entry("commentCount", "comment_count"));
+
+    private final Resource resource;
+    private final List<String> fields;
+    private final boolean comments;
+
+    private FieldSelection(Resource resource, List<String> fields, boolean comments) {
+        this.resource = resource;
+        this.fields = fields;
+        this.comments = comments;
+    }
+
+    /**
+     * Empty when {@code fields} is absent, meaning the full representation. {@code include} only
+     * applies to a sparse request; the full post already carries its comments.
+     */
+    public static Optional<FieldSelection> parse(Resource resource, String fields, String include) {
+        if (fields == null || fields.isBlank()) {
+            return Optional.empty();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!resource.fields.contains(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "'; expected any of " + resource.fields);
+            }
+            names.add(field);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+
+        boolean comments = false;
+        if (include != null && !include.isBlank()) {
+            for (String name : include.split(",")) {
+                String relation = name.trim().toLowerCase(Locale.ROOT);
+                if (relation.equals(INCLUDE_COMMENTS) && resource.hasComments) {
+                    comments = true;
+                } else if (!relation.isEmpty()) {
+                    throw new IllegalArgumentException("Cannot include '" + name.trim() + "'");
+                }
+            }
+        }
+        return Optional.of(new FieldSelection(resource, List.copyOf(names), comments));
+    }
+
+    public List<String> fields() {
+        return fields;
+    }
+
+    public boolean includesComments() {
+        return comments;
+    }
+
+    public boolean has(String field) {
+        return fields.contains(field);
+    }
+
+    boolean needsAuthor() {
+        return has("username") || has("userImageUrl");
+    }
+
+    static String column(String field) {
+        return COLUMNS.get(field);
+    }
+
+    /**
+     * Select list for the requested fields plus whatever the caller always needs (keys and
+     * cursor columns), each column once.
+     */
+    String selectList(String... alwaysSelected) {
+        Set<String> columns = new LinkedHashSet<>(List.of(alwaysSelected));
+        for (String field : fields) {
+            columns.add(column(field));
+        }
+        return String.join(", ", new ArrayList<>(columns));
+    }
+
+    /**
+     * Appended to the ETag, since each fieldset is a different representation of the same
+     * version: a bit per field plus one for included comments, so the tag stays short.
+     */
+    public String etagSuffix() {
+        long bits = comments ? 1L << resource.fields.size() : 0;
+        for (String field : fields) {
+            bits |= 1L << resource.fields.indexOf(field);
+        }
+        return "-f" + Long.toHexString(bits);
+    }
+}
@@ -0,0 +1,306 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.PostView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Push channel behind {@code GET /api/posts/stream}.
+ *
+ * <p>Write paths publish events into a fixed-size ring buffer; each event is serialized once
+ * and gets a sequential id. A subscriber is just a cursor into the ring plus its
+ * {@link SseEmitter}. When events arrive, a virtual thread catches the subscriber up and then
+ * exits, so an idle connection holds no thread and a slow socket only parks its own sender.
+ *
+ * <p>Nothing is buffered per subscriber. A subscriber more than {@code app.stream.max-lag}
+ * events behind is disconnected; it reconnects with {@code Last-Event-ID} and resumes from the
+ * ring, or gets a {@code reset} event telling it to refetch if the ring has moved past it or was
+ * restarted since the id was issued.
+ * Like, share and comment-count changes are coalesced per post and published at most once per
+ * {@code app.stream.counter-window}.
+ */
+@Service
+public class LiveFeed {
+    private static final Logger logger = LoggerFactory.getLogger(LiveFeed.class);
+
+    public static final String POST_CREATED = "post-created";
+    public static final String POST_UPDATED = "post-updated";
+    public static final String POST_DELETED = "post-deleted";
+    public static final String POSTS_ADDED = "posts-added";
+    public static final String COMMENT_ADDED = "comment-added";
+    public static final String COMMENT_UPDATED = "comment-updated";
+    public static final String COMMENT_DELETED = "comment-deleted";
+    public static final String COUNTERS = "counters";
+    public static final String RESET = "reset";
+    private static final int COUNTER_BATCH = 500;
+
+    public record PostRemoved(Long id) {
+    }
+
+    public record PostsAdded(long count) {
+    }
+
+    public record CommentEvent(Long postId, CommentView comment) {
+    }
+
+    public record CommentRemoved(Long postId, Long commentId) {
+    }
+
+    public record CounterSnapshot(Long postId, int likeCount, int shareCount, long commentCount) {
+    }
+
+    record Event(long id, String type, String json) {
+    }
+
+    final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        // Only touched by the sender that holds the sending flag
+        long cursor;
+        boolean resetDue;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final PostQueryService postQueryService;
+    private final Event[] ring;
+    private final long maxLag;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final AtomicLong head = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyCounters = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter dropped;
+
+    public LiveFeed(ObjectMapper objectMapper,
+                    PostQueryService postQueryService,
+                    MeterRegistry meterRegistry,
+                    @Value("${app.stream.buffer-size:4096}") int bufferSize,
+                    @Value("${app.stream.max-lag:1024}") int maxLag,
+                    @Value("${app.stream.max-subscribers:10000}") int maxSubscribers,
+                    @Value("${app.stream.timeout:30m}") Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.postQueryService = postQueryService;
+        this.ring = new Event[bufferSize];
+        this.maxLag = Math.min(maxLag, bufferSize);
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.dropped = Counter.builder("feed.stream.dropped")
+                .description("Subscribers disconnected for falling too far behind")
+                .register(meterRegistry);
+        Gauge.builder("feed.stream.subscribers", subscribers, Set::size)
+                .description("Open live feed connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream. With {@code lastEventId} it resumes after that event if the ring still
+     * holds what follows; if the ring has moved past it, or the id is one this ring never issued,
+     * the stream opens with a {@code reset} event. Without one it starts with the next event published.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live feed subscribers");
+        }
+        long current = head.get();
+        Subscriber subscriber;
+        if (lastEventId == null) {
+            subscriber = new Subscriber(emitter, current);
+        } else if (lastEventId > current || current - lastEventId > maxLag) {
+            // Ahead of the ring means it was issued before a restart; either way the gap is unknown
+            subscriber = new Subscriber(emitter, current);
+            subscriber.resetDue = true;
+        } else {
+            subscriber = new Subscriber(emitter, lastEventId);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        signal(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public void postCreated(PostView post) {
+        publish(POST_CREATED, post);
+    }
+
+    public void postUpdated(PostView post) {
+        publish(POST_UPDATED, post);
+    }
+
+    public void postDeleted(Long id) {
+        dirtyCounters.remove(id);
+        publish(POST_DELETED, new PostRemoved(id));
+    }
+
+    /** Bulk inserts announce themselves once rather than flooding the ring post by post. */
+    public void postsAdded(long count) {
+        if (count > 0) {
+            publish(POSTS_ADDED, new PostsAdded(count));
+        }
+    }
+
+    public void commentAdded(Long postId, CommentView comment) {
+        publish(COMMENT_ADDED, new CommentEvent(postId, comment));
+        countersChanged(postId);
+    }
+
+    public void commentUpdated(Long postId, CommentView comment) {
+        publish(COMMENT_UPDATED, new CommentEvent(postId, comment));
+    }
+
+    public void commentDeleted(Long postId, Long commentId) {
+        publish(COMMENT_DELETED, new CommentRemoved(postId, commentId));
+        countersChanged(postId);
+    }
+
+    /** Likes, shares or the comment count moved; published with the next coalescing window. */
+    public void countersChanged(Long postId) {
+        // Snapshots cost a read each, and a reconnecting client refetches counts anyway
+        if (!subscribers.isEmpty()) {
+            dirtyCounters.add(postId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stream.counter-window:1s}")
+    public void publishCounters() {
+        if (dirtyCounters.isEmpty()) {
+            return;
+        }
+        List<Long> postIds = new ArrayList<>();
+        for (Long postId : dirtyCounters) {
+            dirtyCounters.remove(postId);
+            postIds.add(postId);
+        }
+        // Counts only, one statement per chunk: a cache miss must not load whole comment threads
+        for (int from = 0; from < postIds.size(); from += COUNTER_BATCH) {
+            List<Long> chunk = postIds.subList(from, Math.min(postIds.size(), from + COUNTER_BATCH));
+            try {
+                postQueryService.findCounters(chunk).forEach(snapshot -> publish(COUNTERS, snapshot));
+            } catch (Exception e) {
+                logger.warn("Could not publish counters for {} posts", chunk.size(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stream.heartbeat:15s}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue.set(true);
+            signal(subscriber);
+        }
+    }
+
+    void publish(String type, Object payload) {
+        // Recorded even with nobody listening, so a client reconnecting with Last-Event-ID misses nothing
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize {} event", type, e);
+            return;
+        }
+        synchronized (ring) {
+            long id = head.get() + 1;
+            ring[(int) (id % ring.length)] = new Event(id, type, json);
+            head.set(id);
+        }
+        for (Subscriber subscriber : subscribers) {
+            signal(subscriber);
+        }
+    }
+
+    private void signal(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (subscriber.resetDue) {
+                    subscriber.emitter.send(SseEmitter.event().id(String.valueOf(subscriber.cursor)).name(RESET).data("{}"));
+                    subscriber.resetDue = false;
+                }
+                long next = subscriber.cursor + 1;
+                if (next <= head.get()) {
+                    Event event = ring[(int) (next % ring.length)];
+                    if (head.get() - subscriber.cursor > maxLag || event == null || event.id() != next) {
+                        drop(subscriber);
+                        return;
+                    }
+                    subscriber.emitter.send(SseEmitter.event().id(String.valueOf(event.id())).name(event.type()).data(event.json()));
+                    subscriber.cursor = next;
+                    continue;
+                }
+                if (subscriber.heartbeatDue.getAndSet(false)) {
+                    subscriber.emitter.send(SseEmitter.event().comment("ping"));
+                    continue;
+                }
+                subscriber.sending.set(false);
+                // A publish may have signalled while we still held the flag; take it back if so
+                if ((head.get() <= subscriber.cursor && !subscriber.heartbeatDue.get())
+                        || !subscriber.sending.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the container completes the emitter, we only stop tracking it
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        dropped.increment();
+        logger.debug("Dropping live feed subscriber at {}, head is {}", subscriber.cursor, head.get());
+        subscriber.emitter.complete();
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+}
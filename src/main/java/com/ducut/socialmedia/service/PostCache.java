@@ -0,0 +1,187 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.CommentPage;
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.CursorPage;
+import com.ducut.socialmedia.dto.PostView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache for hot reads: single posts, the first page of each post's comment
+ * thread and the first page of the feed. Caffeine's W-TinyLFU admission keeps one-off reads from pushing out hot
+ * entries, and post/comment entries are weighed by comment count so memory stays bounded.
+ *
+ * <p>Entries hold database state only; unflushed counter deltas are applied by the caller.
+ * Every write path evicts what it touched after committing. Hit and miss rates are published
+ * as {@code cache.gets} metrics tagged with the cache name.
+ */
+@Component
+public class PostCache {
+
+    /** First feed page for one combination of page size and comment preview length. */
+    public record FeedHeadKey(int limit, int previewComments) {
+    }
+
+    private final Cache<Long, PostView> posts;
+    // First page of the default size only; later pages and other sizes go to the database
+    private final Cache<Long, CommentPage<CommentView>> comments;
+    private final Cache<FeedHeadKey, CursorPage<PostView>> feedHeads;
+    private final Generations postGenerations = new Generations();
+    private final Generations commentGenerations = new Generations();
+    private final Generations feedHeadGenerations = new Generations();
+
+    public PostCache(MeterRegistry meterRegistry,
+                     @Value("${app.cache.posts.max-weight:100000}") long postsMaxWeight,
+                     @Value("${app.cache.comments.max-weight:200000}") long commentsMaxWeight,
+                     @Value("${app.cache.feed-head.max-size:64}") long feedHeadMaxSize,
+                     @Value("${app.cache.feed-head.ttl:30s}") Duration feedHeadTtl) {
+        this.posts = Caffeine.newBuilder()
+                .maximumWeight(postsMaxWeight)
+                .weigher((Long id, PostView view) -> 1 + view.comments().size())
+                .recordStats()
+                .build();
+        this.comments = Caffeine.newBuilder()
+                .maximumWeight(commentsMaxWeight)
+                .weigher((Long id, CommentPage<CommentView> page) -> 1 + page.items().size())
+                .recordStats()
+                .build();
+        // The TTL only bounds staleness from writes made by other instances
+        this.feedHeads = Caffeine.newBuilder()
+                .maximumSize(feedHeadMaxSize)
+                .expireAfterWrite(feedHeadTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, posts, "posts");
+        CaffeineCacheMetrics.monitor(meterRegistry, comments, "comments");
+        CaffeineCacheMetrics.monitor(meterRegistry, feedHeads, "feedHeads");
+    }
+
+    public PostView peekPost(Long id) {
+        return posts.getIfPresent(id);
+    }
+
+    /**
+     * Loads a post after {@link #peekPost} missed and caches it; a null from the loader (not
+     * found) is not cached. Returns the cached view instead if another caller filled it in
+     * meanwhile. Concurrent misses are not coalesced here; callers put a {@link SingleFlight}
+     * in front.
+     */
+    public PostView loadPost(Long id, Supplier<PostView> loader) {
+        return load(posts, postGenerations, id, loader);
+    }
+
+    public CommentPage<CommentView> peekCommentsHead(Long postId) {
+        return comments.getIfPresent(postId);
+    }
+
+    /** As {@link #loadPost}, for the first comment page. */
+    public CommentPage<CommentView> loadCommentsHead(Long postId, Supplier<CommentPage<CommentView>> loader) {
+        return load(comments, commentGenerations, postId, loader);
+    }
+
+    public CursorPage<PostView> peekFeedHead(FeedHeadKey key) {
+        return feedHeads.getIfPresent(key);
+    }
+
+    /** As {@link #loadPost}, for the first feed page. */
+    public CursorPage<PostView> loadFeedHead(FeedHeadKey key, Supplier<CursorPage<PostView>> loader) {
+        return load(feedHeads, feedHeadGenerations, key, loader);
+    }
+
+    /**
+     * Runs the loader outside the cache: Caffeine's own loading runs it inside a map compute,
+     * which holds a monitor across the query and pins a virtual thread's carrier for as long as
+     * the database takes. The result is put afterwards and taken back out if an invalidation
+     * for its key ran in the meantime, since that may have been for a write the load missed.
+     */
+    private static <K, V> V load(Cache<K, V> cache, Generations generations, K key, Supplier<V> loader) {
+        long generation = generations.current(key);
+        V loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        V cached = cache.asMap().putIfAbsent(key, loaded);
+        if (cached != null) {
+            return cached;
+        }
+        // Invalidations advance the generation before evicting, so one we raced with either
+        // evicted our entry or shows up here
+        if (generations.current(key) != generation) {
+            cache.asMap().remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    /** After a post, its comments or its counters changed. */
+    public void invalidatePost(Long postId) {
+        postGenerations.advance(postId);
+        commentGenerations.advance(postId);
+        posts.invalidate(postId);
+        comments.invalidate(postId);
+        invalidateFeedHead();
+    }
+
+    public void invalidatePosts(Collection<Long> postIds) {
+        postIds.forEach(postGenerations::advance);
+        postIds.forEach(commentGenerations::advance);
+        posts.invalidateAll(postIds);
+        comments.invalidateAll(postIds);
+        invalidateFeedHead();
+    }
+
+    /** After posts were added without touching existing ones. */
+    public void invalidateFeedHead() {
+        feedHeadGenerations.advanceAll();
+        feedHeads.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        postGenerations.advanceAll();
+        commentGenerations.advanceAll();
+        posts.invalidateAll();
+        comments.invalidateAll();
+        invalidateFeedHead();
+    }
+
+    @EventListener
+    public void onCountersFlushed(CountersFlushedEvent event) {
+        invalidatePosts(event.postIds());
+    }
+
+    /** Invalidation count per stripe of keys, so a finished load can tell whether it raced one. */
+    private static final class Generations {
+        private static final int STRIPES = 64;
+
+        private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+
+        long current(Object key) {
+            return stripes.get(stripe(key));
+        }
+
+        void advance(Object key) {
+            stripes.incrementAndGet(stripe(key));
+        }
+
+        void advanceAll() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.incrementAndGet(i);
+            }
+        }
+
+        private static int stripe(Object key) {
+            int hash = key.hashCode();
+            return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+        }
+    }
+}
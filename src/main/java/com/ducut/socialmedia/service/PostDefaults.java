@@ -0,0 +1,55 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+
+/**
+ * Validation, trimming and defaulting shared by every path that creates posts.
+ */
+public final class PostDefaults {
+    public static final String ANONYMOUS = "Anonymous";
+    public static final String DEFAULT_USER_IMAGE_URL = "https://randomuser.me/api/portraits/lego/1.jpg";
+
+    private PostDefaults() {
+    }
+
+    /** A post needs at least one of content, image or video. */
+    public static boolean hasBody(Post post) {
+        return !isBlank(post.getContent()) || !isBlank(post.getImageUrl()) || !isBlank(post.getVideoUrl());
+    }
+
+    public static void applyDefaults(Post post) {
+        if (isBlank(post.getUsername())) {
+            post.setUsername(ANONYMOUS);
+        }
+        if (isBlank(post.getUserImageUrl())) {
+            post.setUserImageUrl(DEFAULT_USER_IMAGE_URL);
+        }
+
+        post.setContent(trim(post.getContent()));
+        post.setImageUrl(trim(post.getImageUrl()));
+        post.setVideoUrl(trim(post.getVideoUrl()));
+    }
+
+    /** The same defaults for comments that arrive nested in a post rather than one at a time. */
+    public static void applyDefaults(Comment comment) {
+        if (isBlank(comment.getUsername())) {
+            comment.setUsername(ANONYMOUS);
+        }
+        if (isBlank(comment.getUserImageUrl())) {
+            comment.setUserImageUrl(DEFAULT_USER_IMAGE_URL);
+        }
+
+        comment.setContent(trim(comment.getContent()));
+        comment.setImageUrl(trim(comment.getImageUrl()));
+        comment.setVideoUrl(trim(comment.getVideoUrl()));
+    }
+
+    public static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
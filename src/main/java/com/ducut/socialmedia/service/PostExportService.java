@@ -0,0 +1,153 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Full dumps of posts (and their comments) as NDJSON, one {@link PostView} per line.
+ *
+ * <p>Posts are read in id order from a server-side cursor inside a read-only transaction, so the
+ * database hands rows over {@code app.export.fetch-size} at a time. Comments are loaded with one
+ * query per fetch-size chunk of posts, and the persistence context is cleared after each chunk
+ * is written. Heap use depends on the fetch size, not the table size.
+ *
+ * <p>Lines are ordered by id, so a client whose connection drops resumes with {@code afterId}
+ * set to the last id it received.
+ */
+@Service
+public class PostExportService {
+    private static final int MAX_FETCH_SIZE = 10_000;
+
+    /** Optional bounds on the export; null fields are not applied. */
+    public record Filter(LocalDateTime createdFrom, LocalDateTime createdTo, Long afterId, boolean comments) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private AuthorDictionary authorDictionary;
+
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectWriter lineWriter;
+    private final int fetchSize;
+
+    public PostExportService(PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${app.export.fetch-size:500}") int fetchSize) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.lineWriter = objectMapper.writerFor(PostView.class);
+        this.fetchSize = Math.max(1, Math.min(fetchSize, MAX_FETCH_SIZE));
+    }
+
+    /** Writes every matching post to {@code out} and returns how many were written. */
+    public long export(Filter filter, OutputStream out) {
+        return readOnlyTx.execute(status -> {
+            long written = 0;
+            try (Stream<Post> posts = postQuery(filter).getResultStream()) {
+                Iterator<Post> cursor = posts.iterator();
+                List<Post> chunk = new ArrayList<>(fetchSize);
+                while (cursor.hasNext()) {
+                    chunk.add(cursor.next());
+                    if (chunk.size() == fetchSize || !cursor.hasNext()) {
+                        written += writeChunk(chunk, filter.comments(), out);
+                        chunk.clear();
+                        // Rows already on the wire must not pile up in the first-level cache
+                        entityManager.clear();
+                    }
+                }
+            }
+            return written;
+        });
+    }
+
+    private TypedQuery<Post> postQuery(Filter filter) {
+        StringBuilder jpql = new StringBuilder("select p from Post p where 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        if (filter.createdFrom() != null) {
+            jpql.append(" and p.createdAt >= :createdFrom");
+            params.put("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            jpql.append(" and p.createdAt < :createdTo");
+            params.put("createdTo", filter.createdTo());
+        }
+        if (filter.afterId() != null) {
+            jpql.append(" and p.id > :afterId");
+            params.put("afterId", filter.afterId());
+        }
+        jpql.append(" order by p.id asc");
+
+        TypedQuery<Post> query = entityManager.createQuery(jpql.toString(), Post.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        params.forEach(query::setParameter);
+        return query;
+    }
+
+    private int writeChunk(List<Post> posts, boolean withComments, OutputStream out) {
+        authorDictionary.resolve(posts);
+        Map<Long, List<CommentView>> comments = withComments ? commentsFor(posts) : Map.of();
+        try {
+            for (Post post : posts) {
+                PostView view = PostView.from(post, post.getCommentCount(),
+                        comments.getOrDefault(post.getId(), List.of()));
+                out.write(lineWriter.writeValueAsBytes(view));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return posts.size();
+    }
+
+    private Map<Long, List<CommentView>> commentsFor(List<Post> posts) {
+        List<Long> ids = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            if (post.getCommentCount() > 0) {
+                ids.add(post.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<Comment> rows = entityManager.createQuery(
+                        "select c from Comment c where c.post.id in :postIds " +
+                                "order by c.post.id, c.createdAt, c.id", Comment.class)
+                .setParameter("postIds", ids)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+        authorDictionary.resolve(rows);
+        Map<Long, List<CommentView>> byPost = new HashMap<>();
+        for (Comment comment : rows) {
+            byPost.computeIfAbsent(comment.getPost().getId(), id -> new ArrayList<>())
+                    .add(CommentView.from(comment));
+        }
+        return byPost;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.IngestReport;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streaming NDJSON ingest for posts.
+ *
+ * <p>The body is read one line at a time and persisted in chunks, each in its own transaction
+ * with JDBC batching, and the persistence context is cleared after every chunk. Heap use
+ * depends on the chunk size, not the payload size. A chunk that fails as a whole is retried
+ * row by row so the good rows still land and the bad ones are reported by line number.
+ *
+ * <p>A post may carry its comments in a nested {@code comments} array; they are inserted with
+ * it and its {@code comment_count} is set from the array in the same transaction.
+ */
+@Service
+public class PostIngestService {
+    private static final Logger logger = LoggerFactory.getLogger(PostIngestService.class);
+
+    public static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_CHUNK_SIZE = 10_000;
+    private static final int MAX_ERRORS_PER_CHUNK = 10;
+    // comment_count is not insertable (see Post), so nested comments are counted afterwards
+    private static final String SET_COMMENT_COUNT_SQL = "UPDATE posts SET comment_count = ? WHERE id = ?";
+
+    /** A parsed post and the NDJSON line it came from. */
+    private record Row(int lineNumber, Post post) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.ingest.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    private final ObjectReader postReader;
+
+    public PostIngestService(ObjectMapper objectMapper) {
+        this.postReader = objectMapper.readerFor(Post.class);
+    }
+
+    public IngestReport ingest(InputStream body, Integer chunkSize) throws IOException {
+        int size = Math.max(1, Math.min(chunkSize != null ? chunkSize : defaultChunkSize, MAX_CHUNK_SIZE));
+        List<IngestReport.ChunkResult> results = new ArrayList<>();
+        long received = 0;
+        long inserted = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Row> chunk = new ArrayList<>(size);
+        List<String> errors = new ArrayList<>();
+        int chunkReceived = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunkReceived++;
+            try {
+                Post post = parse(line);
+                if (post == null) {
+                    addError(errors, lineNumber, "Post must contain either content, image, or video");
+                } else {
+                    chunk.add(new Row(lineNumber, post));
+                }
+            } catch (JsonProcessingException e) {
+                addError(errors, lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+
+            if (chunkReceived == size) {
+                IngestReport.ChunkResult result = persistChunk(results.size(), chunkReceived, chunk, errors);
+                results.add(result);
+                received += result.received();
+                inserted += result.inserted();
+                chunk = new ArrayList<>(size);
+                errors = new ArrayList<>();
+                chunkReceived = 0;
+            }
+        }
+        if (chunkReceived > 0) {
+            IngestReport.ChunkResult result = persistChunk(results.size(), chunkReceived, chunk, errors);
+            results.add(result);
+            received += result.received();
+            inserted += result.inserted();
+        }
+        return new IngestReport(received, inserted, received - inserted, results);
+    }
+
+    /** Parses and normalizes one line; returns null when the post fails validation. */
+    private Post parse(String line) throws JsonProcessingException {
+        Post post = postReader.readValue(line);
+        if (!PostDefaults.hasBody(post)) {
+            return null;
+        }
+        // Backfills keep their original timestamps; the setters touched by normalization must not reset them
+        LocalDateTime updatedAt = post.getUpdatedAt();
+        PostDefaults.applyDefaults(post);
+        post.setUpdatedAt(updatedAt);
+        post.setId(null);
+        if (post.getComments() == null) {
+            post.setComments(new ArrayList<>());
+        }
+        post.getComments().removeIf(Objects::isNull);
+        for (Comment comment : post.getComments()) {
+            comment.setId(null);
+            comment.setPost(post);
+            PostDefaults.applyDefaults(comment);
+        }
+        return post;
+    }
+
+    private IngestReport.ChunkResult persistChunk(int index, int received, List<Row> rows, List<String> errors) {
+        if (rows.isEmpty()) {
+            return new IngestReport.ChunkResult(index, received, 0, received, errors);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(rows));
+            return new IngestReport.ChunkResult(index, received, rows.size(), received - rows.size(), errors);
+        } catch (Exception e) {
+            logger.warn("Chunk {} failed as a whole, retrying row by row: {}", index, e.getMessage());
+        }
+
+        int inserted = 0;
+        for (Row row : rows) {
+            // Ids assigned by the failed attempt, author ids included, were rolled back with it
+            row.post().setId(null);
+            row.post().setAuthorId(null);
+            row.post().getComments().forEach(comment -> {
+                comment.setId(null);
+                comment.setAuthorId(null);
+            });
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(List.of(row)));
+                inserted++;
+            } catch (Exception e) {
+                addError(errors, row.lineNumber(), e.getMessage());
+            }
+        }
+        return new IngestReport.ChunkResult(index, received, inserted, received - inserted, errors);
+    }
+
+    private void persist(List<Row> rows) {
+        rows.forEach(row -> entityManager.persist(row.post()));
+        entityManager.flush();
+        List<Object[]> counts = new ArrayList<>();
+        for (Row row : rows) {
+            if (!row.post().getComments().isEmpty()) {
+                counts.add(new Object[]{row.post().getComments().size(), row.post().getId()});
+            }
+        }
+        if (!counts.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_COMMENT_COUNT_SQL, counts);
+        }
+        entityManager.clear();
+    }
+
+    private static void addError(List<String> errors, int lineNumber, String message) {
+        if (errors.size() < MAX_ERRORS_PER_CHUNK) {
+            errors.add(lineNumber > 0 ? "line " + lineNumber + ": " + message : message);
+        }
+    }
+}
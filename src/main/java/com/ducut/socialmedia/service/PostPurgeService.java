@@ -0,0 +1,98 @@
+package com.ducut.socialmedia.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background removal of posts that {@link PostWriteService#deletePost} only marked deleted.
+ *
+ * <p>Comments go first, {@code app.purge.batch-size} rows per statement, each statement in its
+ * own short transaction, so no lock is held for long and other writes keep flowing. The post row
+ * goes last. The job only queries for work after a delete was scheduled (and once after startup,
+ * to finish anything a previous run left behind).
+ */
+@Service
+public class PostPurgeService {
+    private static final Logger logger = LoggerFactory.getLogger(PostPurgeService.class);
+    private static final int POSTS_PER_RUN = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final AtomicBoolean pending = new AtomicBoolean(true);
+    private final Counter purgedComments;
+    private final Counter purgedPosts;
+
+    public PostPurgeService(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.purge.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.purgedComments = Counter.builder("posts.purge.comments")
+                .description("Comments removed by the background purge")
+                .register(meterRegistry);
+        this.purgedPosts = Counter.builder("posts.purge.posts")
+                .description("Posts removed by the background purge")
+                .register(meterRegistry);
+    }
+
+    /** Wakes the job once the current transaction commits, so it never looks before the mark is visible. */
+    public void purgeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.set(true);
+                }
+            });
+        } else {
+            pending.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.purge.interval:5s}")
+    public void purge() {
+        if (!pending.getAndSet(false)) {
+            return;
+        }
+        try {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM posts WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id LIMIT " + POSTS_PER_RUN,
+                    Long.class);
+            for (Long id : ids) {
+                purgePost(id);
+            }
+            if (ids.size() == POSTS_PER_RUN) {
+                pending.set(true);
+            }
+        } catch (Exception e) {
+            pending.set(true);
+            logger.error("Error purging deleted posts: ", e);
+        }
+    }
+
+    private void purgePost(Long id) {
+        long comments = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM comments WHERE id IN " +
+                    "(SELECT id FROM comments WHERE post_id = ? ORDER BY id LIMIT ?)", id, batchSize);
+            comments += deleted;
+            purgedComments.increment(deleted);
+        } while (deleted == batchSize);
+        if (jdbcTemplate.update("DELETE FROM posts WHERE id = ? AND deleted_at IS NOT NULL", id) > 0) {
+            purgedPosts.increment();
+        }
+        logger.info("Purged post {} and {} comments", id, comments);
+    }
+}
@@ -0,0 +1,411 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.config.ReplicaRouting;
+import com.ducut.socialmedia.dto.CommentPage;
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.PageCursor;
+import com.ducut.socialmedia.dto.PostBatch;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.CommentRepository;
+import com.ducut.socialmedia.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Point reads for single posts and their comments, returned as views with unflushed
+ * counter deltas applied. Posts and the first page of each comment thread are served from {@link PostCache};
+ * a transaction (and connection) is only opened on a miss, and concurrent misses for the same post
+ * or comment page share it through a {@link SingleFlight}.
+ */
+@Service
+public class PostQueryService {
+    public static final int DEFAULT_COMMENT_PAGE_SIZE = 50;
+    public static final int MAX_COMMENT_PAGE_SIZE = 200;
+    public static final int MAX_BATCH_POSTS = 100;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private AuthorDictionary authorDictionary;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate readOnlyTx;
+    private final SingleFlight<Long, Loaded<PostView>> postLoads;
+    private final SingleFlight<CommentPageKey, Loaded<CommentPage<CommentView>>> commentLoads;
+
+    /**
+     * A shared load with the counter stamp taken just before it, so every caller applies pending
+     * deltas against what the load actually read.
+     */
+    private record Loaded<T>(long stamp, T value) {
+    }
+
+    // Callers pinned to the primary never share a page another caller may have read from the replica
+    private record CommentPageKey(Long postId, int pageSize, PageCursor after, PageCursor before, boolean primary) {
+    }
+
+    public PostQueryService(PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.singleflight.max-wait:2s}") Duration maxWait) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.postLoads = new SingleFlight<>("post", maxWait, meterRegistry);
+        this.commentLoads = new SingleFlight<>("comments", maxWait, meterRegistry);
+    }
+
+    /**
+     * Cache hits return at once. Concurrent misses for the same post share one load, and callers
+     * that wait longer than {@code app.singleflight.max-wait} get a
+     * {@link SingleFlight.WaitTimeoutException}.
+     */
+    public Optional<PostView> findPost(Long id) {
+        long stamp = counterAggregator.readStamp();
+        PostView cached = postCache.peekPost(id);
+        Loaded<PostView> loaded = cached != null
+                ? new Loaded<>(stamp, cached)
+                : postLoads.execute(id, () -> {
+                    long loadStamp = counterAggregator.readStamp();
+                    return new Loaded<>(loadStamp, postCache.loadPost(id, () -> loadPost(id)));
+                });
+        return Optional.ofNullable(loaded.value())
+                .map(view -> counterAggregator.applyPending(view, loaded.stamp()));
+    }
+
+    public boolean exists(Long id) {
+        return findPost(id).isPresent();
+    }
+
+    /**
+     * Several posts by id, in the order given. Cached posts are served from {@link PostCache};
+     * the rest are read together, one query for the posts and one for all their comments.
+     * Those are not added to the cache: filling many entries at once cannot be ordered against
+     * concurrent invalidations the way the single-post load is.
+     */
+    public PostBatch findPosts(List<Long> ids) {
+        Set<Long> wanted = new LinkedHashSet<>(ids);
+        if (wanted.isEmpty() || wanted.size() > MAX_BATCH_POSTS) {
+            throw new IllegalArgumentException("Pass between 1 and " + MAX_BATCH_POSTS + " ids");
+        }
+        long stamp = counterAggregator.readStamp();
+        Map<Long, PostView> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : wanted) {
+            PostView cached = postCache.peekPost(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            readOnlyTx.executeWithoutResult(status -> loadPosts(misses).forEach(view -> found.put(view.id(), view)));
+        }
+
+        List<PostView> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : wanted) {
+            PostView view = found.get(id);
+            if (view != null) {
+                items.add(view);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PostBatch(counterAggregator.applyPending(items, stamp), missing);
+    }
+
+    /**
+     * Posts by id with their counts but without comments, for lists that only show the posts
+     * themselves. Read straight from the database and never cached; deleted posts are left out.
+     */
+    public List<PostView> findPostSummaries(Collection<Long> ids) {
+        return readOnlyTx.execute(status -> {
+            List<Post> posts = postRepository.findAllById(ids);
+            authorDictionary.resolve(posts);
+            return posts.stream()
+                    .map(post -> PostView.from(post, post.getCommentCount(), List.of()))
+                    .toList();
+        });
+    }
+
+    /**
+     * Like, share and comment counts for the given posts, with unflushed deltas applied, in one
+     * statement that reads nothing else. Runs on the primary; deleted and missing posts are left out.
+     */
+    public List<LiveFeed.CounterSnapshot> findCounters(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return counterAggregator.readStable(() -> namedParameterJdbcTemplate.query(
+                "SELECT id, like_count, share_count, comment_count FROM posts WHERE id IN (:ids) AND deleted_at IS NULL",
+                new MapSqlParameterSource("ids", ids),
+                (rs, rowNum) -> {
+                    long id = rs.getLong(1);
+                    return new LiveFeed.CounterSnapshot(id,
+                            rs.getInt(2) + (int) counterAggregator.pendingDelta(CounterAggregator.Counter.POST_LIKES, id),
+                            rs.getInt(3) + (int) counterAggregator.pendingDelta(CounterAggregator.Counter.POST_SHARES, id),
+                            rs.getLong(4));
+                }));
+    }
+
+    /**
+     * A post with only the selected fields, read straight from the selected columns; with
+     * comments included, the whole thread is attached as in the full representation.
+     */
+    public Optional<Map<String, Object>> findSparsePost(Long id, FieldSelection selection) {
+        String sql = "SELECT " + selection.selectList("id", "created_at") +
+                " FROM posts WHERE id = :id AND deleted_at IS NULL";
+        return counterAggregator.readStable(() -> readOnlyTx.execute(status -> {
+            List<SparseRow> rows = namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("id", id),
+                    SparseRow.mapper(selection));
+            if (rows.isEmpty()) {
+                return Optional.<Map<String, Object>>empty();
+            }
+            SparseRow row = rows.get(0);
+            authorDictionary.resolve(rows);
+            row.addPending("likeCount", counterAggregator.pendingDelta(CounterAggregator.Counter.POST_LIKES, id));
+            row.addPending("shareCount", counterAggregator.pendingDelta(CounterAggregator.Counter.POST_SHARES, id));
+            if (selection.includesComments()) {
+                List<Comment> comments = commentRepository.findByPostId(id);
+                authorDictionary.resolve(comments);
+                row.put("comments", comments.stream()
+                        .map(CommentView::from)
+                        .map(view -> view.withLikeCount((int) (view.likeCount()
+                                + counterAggregator.pendingDelta(CounterAggregator.Counter.COMMENT_LIKES, view.id()))))
+                        .toList());
+            }
+            return Optional.of(row.values());
+        }));
+    }
+
+    /**
+     * A page of a post's comment thread, oldest first. {@code after} continues towards newer
+     * comments and {@code before} back towards older ones; at most one of them may be given.
+     * Empty when the post does not exist.
+     */
+    public Optional<CommentPage<CommentView>> findComments(Long postId, int limit, String after, String before) {
+        boolean hasAfter = after != null && !after.isBlank();
+        boolean hasBefore = before != null && !before.isBlank();
+        if (hasAfter && hasBefore) {
+            throw new IllegalArgumentException("Pass either after or before, not both");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_COMMENT_PAGE_SIZE));
+        // Decode outside the transaction so a bad cursor never costs a connection
+        PageCursor afterCursor = hasAfter ? PageCursor.decode(after) : null;
+        PageCursor beforeCursor = hasBefore ? PageCursor.decode(before) : null;
+        boolean head = !hasAfter && !hasBefore && pageSize == DEFAULT_COMMENT_PAGE_SIZE;
+        long stamp = counterAggregator.readStamp();
+
+        CommentPage<CommentView> cached = head ? postCache.peekCommentsHead(postId) : null;
+        Loaded<CommentPage<CommentView>> loaded = cached != null
+                ? new Loaded<>(stamp, cached)
+                : commentLoads.execute(new CommentPageKey(postId, pageSize, afterCursor, beforeCursor,
+                        ReplicaRouting.isPinned()), () -> {
+                    long loadStamp = counterAggregator.readStamp();
+                    CommentPage<CommentView> page = head
+                            ? postCache.loadCommentsHead(postId, () -> ReplicaRouting.onPrimary(
+                                    () -> readOnlyTx.execute(status -> loadComments(postId, pageSize, null, null))))
+                            : readOnlyTx.execute(status -> loadComments(postId, pageSize, afterCursor, beforeCursor));
+                    return new Loaded<>(loadStamp, page);
+                });
+        return Optional.ofNullable(loaded.value())
+                .map(p -> p.withItems(counterAggregator.applyPendingToComments(p.items(), loaded.stamp())));
+    }
+
+    /** {@link #findComments} with only the selected fields; never cached, the head cache holds full views. */
+    public Optional<CommentPage<Map<String, Object>>> findSparseComments(Long postId, int limit, String after,
+                                                                        String before, FieldSelection selection) {
+        boolean hasAfter = after != null && !after.isBlank();
+        boolean hasBefore = before != null && !before.isBlank();
+        if (hasAfter && hasBefore) {
+            throw new IllegalArgumentException("Pass either after or before, not both");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_COMMENT_PAGE_SIZE));
+        PageCursor afterCursor = hasAfter ? PageCursor.decode(after) : null;
+        PageCursor beforeCursor = hasBefore ? PageCursor.decode(before) : null;
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(selection.selectList("id", "created_at"))
+                .append(" FROM comments WHERE post_id = :postId");
+        MapSqlParameterSource params = new MapSqlParameterSource("postId", postId).addValue("limit", pageSize + 1);
+        PageCursor cursor = beforeCursor != null ? beforeCursor : afterCursor;
+        if (cursor != null) {
+            sql.append(beforeCursor != null ? " AND (created_at, id) < " : " AND (created_at, id) > ")
+                    .append("(:createdAt, :id)");
+            params.addValue("createdAt", cursor.createdAt()).addValue("id", cursor.id());
+        }
+        // Newest first when paging backwards; the page is reversed below
+        sql.append(beforeCursor != null ? " ORDER BY created_at DESC, id DESC" : " ORDER BY created_at, id")
+                .append(" LIMIT :limit");
+
+        return counterAggregator.readStable(() -> readOnlyTx.execute(status -> {
+            Optional<Long> total = postRepository.findCommentCountById(postId);
+            if (total.isEmpty()) {
+                return Optional.<CommentPage<Map<String, Object>>>empty();
+            }
+            List<SparseRow> rows = namedParameterJdbcTemplate.query(sql.toString(), params, SparseRow.mapper(selection));
+            boolean more = rows.size() > pageSize;
+            List<SparseRow> page = new ArrayList<>(more ? rows.subList(0, pageSize) : rows);
+            if (beforeCursor != null) {
+                Collections.reverse(page);
+            }
+            authorDictionary.resolve(page);
+            for (SparseRow row : page) {
+                row.addPending("likeCount", counterAggregator.pendingDelta(CounterAggregator.Counter.COMMENT_LIKES, row.id()));
+            }
+
+            String prevCursor = null;
+            String nextCursor = null;
+            if (!page.isEmpty()) {
+                boolean olderExist = beforeCursor != null ? more : afterCursor != null;
+                boolean newerExist = beforeCursor != null || more;
+                prevCursor = olderExist ? page.get(0).cursor() : null;
+                nextCursor = newerExist ? page.get(page.size() - 1).cursor() : null;
+            }
+            return Optional.of(new CommentPage<>(page.stream().map(SparseRow::values).toList(),
+                    total.get(), prevCursor, nextCursor));
+        }));
+    }
+
+    /** Empty when the comment does not exist or belongs to another post. */
+    public Optional<CommentView> findComment(Long postId, Long commentId) {
+        long stamp = counterAggregator.readStamp();
+        return readOnlyTx.execute(status -> commentRepository.findByIdAndPostId(commentId, postId)
+                .map(comment -> {
+                    authorDictionary.resolve(List.of(comment));
+                    return CommentView.from(comment);
+                })
+                .map(view -> counterAggregator.applyPending(view, stamp)));
+    }
+
+    /**
+     * Opaque tag for a post's representation, derived from its version and unflushed counters;
+     * the controller sends it as a weak ETag. Weak because the same tag stands for the JSON, Smile
+     * and CBOR encodings and for compressed bodies, which are equivalent but not byte-identical,
+     * and a strong tag would stop gzip-encoded responses from validating. Costs a cache lookup or
+     * a single-column query, never a full load. Empty when the post does not exist.
+     */
+    public Optional<String> postEtag(Long id) {
+        return etag("p", id);
+    }
+
+    /** ETag for a post's comment list; comment writes bump the post's version too. */
+    public Optional<String> commentsEtag(Long postId) {
+        return etag("c", postId);
+    }
+
+    private Optional<String> etag(String prefix, Long postId) {
+        return counterAggregator.readStable(() -> {
+            PostView cached = postCache.peekPost(postId);
+            Optional<Long> version = cached != null
+                    ? Optional.of(cached.version())
+                    : postRepository.findVersionById(postId);
+            return version.map(v -> prefix + postId + "-" + v + "-" + counterAggregator.fingerprint(postId));
+        });
+    }
+
+    private CommentPage<CommentView> loadComments(Long postId, int pageSize, PageCursor after, PageCursor before) {
+        Optional<Long> total = postRepository.findCommentCountById(postId);
+        if (total.isEmpty()) {
+            return null;
+        }
+        // Fetch one extra row so we know whether the thread continues past this page
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Comment> rows;
+        if (before != null) {
+            rows = commentRepository.findThreadBefore(postId, before.createdAt(), before.id(), fetch);
+        } else if (after != null) {
+            rows = commentRepository.findThreadAfter(postId, after.createdAt(), after.id(), fetch);
+        } else {
+            rows = commentRepository.findThreadStart(postId, fetch);
+        }
+        authorDictionary.resolve(rows);
+        boolean more = rows.size() > pageSize;
+        List<Comment> page = new ArrayList<>(more ? rows.subList(0, pageSize) : rows);
+        if (before != null) {
+            Collections.reverse(page);
+        }
+
+        String prevCursor = null;
+        String nextCursor = null;
+        if (!page.isEmpty()) {
+            boolean olderExist = before != null ? more : after != null;
+            boolean newerExist = before != null || more;
+            prevCursor = olderExist ? cursorOf(page.get(0)) : null;
+            nextCursor = newerExist ? cursorOf(page.get(page.size() - 1)) : null;
+        }
+        return new CommentPage<>(page.stream().map(CommentView::from).toList(), total.get(), prevCursor, nextCursor);
+    }
+
+    private List<PostView> loadPosts(List<Long> ids) {
+        List<Post> posts = postRepository.findAllById(ids);
+        List<Long> withComments = posts.stream()
+                .filter(post -> post.getCommentCount() > 0)
+                .map(Post::getId)
+                .toList();
+        authorDictionary.resolve(posts);
+        Map<Long, List<CommentView>> threads = new HashMap<>();
+        if (!withComments.isEmpty()) {
+            List<Comment> comments = commentRepository.findByPostIdIn(withComments);
+            authorDictionary.resolve(comments);
+            for (Comment comment : comments) {
+                threads.computeIfAbsent(comment.getPost().getId(), id -> new ArrayList<>())
+                        .add(CommentView.from(comment));
+            }
+        }
+        return posts.stream()
+                .map(post -> PostView.from(post, post.getCommentCount(), threads.getOrDefault(post.getId(), List.of())))
+                .toList();
+    }
+
+    private static String cursorOf(Comment comment) {
+        return new PageCursor(comment.getCreatedAt(), comment.getId()).encode();
+    }
+
+    // Only ever loaded into the post cache, so always from the primary
+    private PostView loadPost(Long id) {
+        return ReplicaRouting.onPrimary(() -> readOnlyTx.execute(status -> postRepository.findById(id)
+                .map(post -> {
+                    List<Comment> rows = commentRepository.findByPostId(id);
+                    authorDictionary.resolve(List.of(post));
+                    authorDictionary.resolve(rows);
+                    List<CommentView> comments = rows.stream()
+                            .map(CommentView::from)
+                            .toList();
+                    return PostView.from(post, post.getCommentCount(), comments);
+                })
+                .orElse(null)));
+    }
+}
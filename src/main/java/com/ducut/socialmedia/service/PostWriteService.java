@@ -0,0 +1,222 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.CommentBatchReport;
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.CreatedComment;
+import com.ducut.socialmedia.dto.NewComment;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.CommentRepository;
+import com.ducut.socialmedia.repository.PostRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Transactional write paths that change a post's representation. Each one bumps the post's
+ * version in the same transaction as the change, so an ETag can never describe new content
+ * with an old version. Callers evict {@link PostCache} entries after these return.
+ */
+@Service
+public class PostWriteService {
+    public static final int MAX_BATCH_COMMENTS = 5_000;
+    private static final int JDBC_BATCH_SIZE = 50;
+    private static final int CLEAR_EVERY = 500;
+    private static final int MAX_ERRORS = 100;
+    private static final String ADJUST_COMMENT_COUNT_SQL =
+            "UPDATE posts SET comment_count = comment_count + ?, version = version + 1 WHERE id = ? AND deleted_at IS NULL";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostPurgeService postPurgeService;
+
+    @Autowired
+    private AuthorDictionary authorDictionary;
+
+    @Value("${app.delete.async-threshold:1000}")
+    private long asyncDeleteThreshold;
+
+    public enum DeleteOutcome { NOT_FOUND, DELETED, SCHEDULED }
+
+    @Transactional
+    public Optional<Post> updatePost(Long id, Post postDetails) {
+        return postRepository.findById(id)
+                .map(post -> {
+                    post.setContent(PostDefaults.trim(postDetails.getContent()));
+                    post.setUsername(PostDefaults.trim(postDetails.getUsername()));
+                    post.setUserImageUrl(PostDefaults.trim(postDetails.getUserImageUrl()));
+                    post.setImageUrl(PostDefaults.trim(postDetails.getImageUrl()));
+                    post.setVideoUrl(PostDefaults.trim(postDetails.getVideoUrl()));
+                    post.setUpdatedAt(LocalDateTime.now());
+                    authorDictionary.assign(post);
+                    Post savedPost = postRepository.save(post);
+                    postRepository.bumpVersion(id);
+                    return savedPost;
+                });
+    }
+
+    /**
+     * Deletes a post with set-based statements instead of cascading through every comment.
+     * Threads longer than {@code app.delete.async-threshold} are only marked deleted here, which
+     * hides the post at once; {@link PostPurgeService} removes the rows afterwards in small batches.
+     */
+    @Transactional
+    public DeleteOutcome deletePost(Long id) {
+        Optional<Long> commentCount = postRepository.findCommentCountById(id);
+        if (commentCount.isEmpty()) {
+            return DeleteOutcome.NOT_FOUND;
+        }
+        if (commentCount.get() > asyncDeleteThreshold) {
+            if (postRepository.markDeleted(id, LocalDateTime.now()) == 0) {
+                return DeleteOutcome.NOT_FOUND;
+            }
+            postPurgeService.purgeAfterCommit();
+            return DeleteOutcome.SCHEDULED;
+        }
+        commentRepository.deleteAllFromPost(id);
+        return postRepository.deleteWithoutCascade(id) > 0 ? DeleteOutcome.DELETED : DeleteOutcome.NOT_FOUND;
+    }
+
+    /**
+     * Adds a comment without loading the post: the count update doubles as the existence check
+     * (and holds the post's row lock until commit), and the comment references the post by id.
+     */
+    @Transactional
+    public Optional<CreatedComment> addComment(Long postId, Comment commentRequest) {
+        if (postRepository.adjustCommentCount(postId, 1) == 0) {
+            return Optional.empty();
+        }
+        Comment comment = newComment(commentRequest.getUsername(), commentRequest.getUserImageUrl(),
+                commentRequest.getContent(), commentRequest.getImageUrl(), commentRequest.getVideoUrl(),
+                postRepository.getReferenceById(postId));
+        commentRepository.save(comment);
+        long commentCount = postRepository.findCommentCountById(postId).orElse(0L);
+        return Optional.of(new CreatedComment(CommentView.from(comment), commentCount));
+    }
+
+    /**
+     * Inserts comments across many posts in one transaction. Comment counts are adjusted first,
+     * one batched UPDATE per post in id order, and the update counts tell which posts exist;
+     * rows for missing posts are reported and skipped. Inserts go through JDBC batching and the
+     * persistence context is cleared as it goes, so memory does not grow with the batch.
+     */
+    @Transactional
+    public CommentBatchReport addComments(List<NewComment> rows) {
+        if (rows.size() > MAX_BATCH_COMMENTS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_COMMENTS + " comments per request");
+        }
+        // Sorted so concurrent batches lock posts in the same order
+        Map<Long, Integer> perPost = new TreeMap<>();
+        for (NewComment row : rows) {
+            if (row != null && row.postId() != null) {
+                perPost.merge(row.postId(), 1, Integer::sum);
+            }
+        }
+        List<Long> postIds = new ArrayList<>(perPost.keySet());
+        int[][] updated = jdbcTemplate.batchUpdate(ADJUST_COMMENT_COUNT_SQL, postIds, JDBC_BATCH_SIZE,
+                (ps, postId) -> {
+                    ps.setInt(1, perPost.get(postId));
+                    ps.setLong(2, postId);
+                });
+        Set<Long> existing = new HashSet<>();
+        int index = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    existing.add(postIds.get(index));
+                }
+                index++;
+            }
+        }
+
+        List<String> errors = new ArrayList<>();
+        int inserted = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            NewComment row = rows.get(i);
+            if (row == null || row.postId() == null) {
+                addError(errors, i, "postId is required");
+                continue;
+            }
+            if (!existing.contains(row.postId())) {
+                addError(errors, i, "post " + row.postId() + " not found");
+                continue;
+            }
+            entityManager.persist(newComment(row.username(), row.userImageUrl(), row.content(),
+                    row.imageUrl(), row.videoUrl(), entityManager.getReference(Post.class, row.postId())));
+            inserted++;
+            if (inserted % CLEAR_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        Map<Long, Integer> insertedByPost = new TreeMap<>(perPost);
+        insertedByPost.keySet().retainAll(existing);
+        return new CommentBatchReport(rows.size(), inserted, rows.size() - inserted, errors, insertedByPost);
+    }
+
+    @Transactional
+    public Optional<CommentView> updateComment(Long postId, Long commentId, Comment commentRequest) {
+        return commentRepository.findByIdAndPostId(commentId, postId)
+                .map(comment -> {
+                    comment.setContent(PostDefaults.trim(commentRequest.getContent()));
+                    comment.setImageUrl(PostDefaults.trim(commentRequest.getImageUrl()));
+                    comment.setVideoUrl(PostDefaults.trim(commentRequest.getVideoUrl()));
+                    postRepository.bumpVersion(postId);
+                    authorDictionary.resolve(List.of(comment));
+                    return CommentView.from(comment);
+                });
+    }
+
+    /** Returns false when the comment does not exist or belongs to another post. */
+    @Transactional
+    public boolean deleteComment(Long postId, Long commentId) {
+        if (commentRepository.deleteFromPost(commentId, postId) == 0) {
+            return false;
+        }
+        postRepository.adjustCommentCount(postId, -1);
+        return true;
+    }
+
+    private static Comment newComment(String username, String userImageUrl, String content,
+                                      String imageUrl, String videoUrl, Post post) {
+        return new Comment(
+                username != null ? username.trim() : PostDefaults.ANONYMOUS,
+                userImageUrl != null ? userImageUrl.trim() : PostDefaults.DEFAULT_USER_IMAGE_URL,
+                PostDefaults.trim(content),
+                PostDefaults.trim(imageUrl),
+                PostDefaults.trim(videoUrl),
+                post
+        );
+    }
+
+    private static void addError(List<String> errors, int index, String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("row " + index + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.Reaction;
+import com.ducut.socialmedia.dto.ReactionReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Applies many like, share and comment-like taps from one request. Every id named in the batch
+ * is checked in a single read, then the taps are summed per id and handed to
+ * {@link CounterAggregator} once per id. Its next flush writes them with the same batched
+ * relative updates as single taps, so a batch never holds row locks of its own.
+ */
+@Service
+public class ReactionService {
+    public static final int MAX_BATCH_REACTIONS = 1_000;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    private final TransactionTemplate readOnlyTx;
+
+    public ReactionService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public ReactionReport apply(List<Reaction> reactions) {
+        if (reactions.size() > MAX_BATCH_REACTIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_REACTIONS + " reactions per request");
+        }
+        Set<Long> postIds = new HashSet<>();
+        Set<Long> commentIds = new HashSet<>();
+        for (Reaction reaction : reactions) {
+            if (isValid(reaction)) {
+                postIds.add(reaction.postId());
+                if (reaction.type() == Reaction.Type.COMMENT_LIKE) {
+                    commentIds.add(reaction.commentId());
+                }
+            }
+        }
+        Set<Long> existingPosts = new HashSet<>();
+        Map<Long, Long> commentOwners = new HashMap<>();
+        if (!postIds.isEmpty()) {
+            readOnlyTx.executeWithoutResult(status -> {
+                namedParameterJdbcTemplate.query(
+                        "SELECT id FROM posts WHERE id IN (:ids) AND deleted_at IS NULL",
+                        Map.of("ids", postIds),
+                        (RowCallbackHandler) rs -> existingPosts.add(rs.getLong(1)));
+                if (!commentIds.isEmpty()) {
+                    namedParameterJdbcTemplate.query(
+                            "SELECT c.id, c.post_id FROM comments c JOIN posts p ON p.id = c.post_id " +
+                                    "WHERE c.id IN (:ids) AND p.deleted_at IS NULL",
+                            Map.of("ids", commentIds),
+                            (RowCallbackHandler) rs -> commentOwners.put(rs.getLong(1), rs.getLong(2)));
+                }
+            });
+        }
+
+        Map<CounterAggregator.Counter, Map<Long, Long>> deltas = new HashMap<>();
+        List<ReactionReport.Result> results = new ArrayList<>(reactions.size());
+        int applied = 0;
+        for (Reaction reaction : reactions) {
+            ReactionReport.Status status;
+            if (!isValid(reaction)) {
+                status = ReactionReport.Status.INVALID;
+            } else if (!exists(reaction, existingPosts, commentOwners)) {
+                status = ReactionReport.Status.NOT_FOUND;
+            } else {
+                Long id = reaction.type() == Reaction.Type.COMMENT_LIKE ? reaction.commentId() : reaction.postId();
+                deltas.computeIfAbsent(counterFor(reaction.type()), counter -> new TreeMap<>())
+                        .merge(id, 1L, Long::sum);
+                status = ReactionReport.Status.APPLIED;
+                applied++;
+            }
+            results.add(reaction != null
+                    ? new ReactionReport.Result(reaction.type(), reaction.postId(), reaction.commentId(), status)
+                    : new ReactionReport.Result(null, null, null, status));
+        }
+        deltas.forEach((counter, perId) -> perId.forEach((id, delta) -> counterAggregator.add(counter, id,
+                counter == CounterAggregator.Counter.COMMENT_LIKES ? commentOwners.get(id) : id, delta)));
+        return new ReactionReport(reactions.size(), applied, results);
+    }
+
+    private static boolean isValid(Reaction reaction) {
+        return reaction != null && reaction.type() != null && reaction.postId() != null
+                && (reaction.type() != Reaction.Type.COMMENT_LIKE || reaction.commentId() != null);
+    }
+
+    private static boolean exists(Reaction reaction, Set<Long> existingPosts, Map<Long, Long> commentOwners) {
+        if (reaction.type() == Reaction.Type.COMMENT_LIKE) {
+            return reaction.postId().equals(commentOwners.get(reaction.commentId()));
+        }
+        return existingPosts.contains(reaction.postId());
+    }
+
+    private static CounterAggregator.Counter counterFor(Reaction.Type type) {
+        return switch (type) {
+            case LIKE -> CounterAggregator.Counter.POST_LIKES;
+            case SHARE -> CounterAggregator.Counter.POST_SHARES;
+            case COMMENT_LIKE -> CounterAggregator.Counter.COMMENT_LIKES;
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.config.PostgresSchemaSupport;
+import com.ducut.socialmedia.dto.CursorPage;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.dto.SearchCursor;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.repository.PostSearchRepository.SearchHit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Relevance-ranked, keyset-paginated search over post content.
+ */
+@Service
+public class SearchService {
+    public static final int MAX_QUERY_LENGTH = 256;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private PostgresSchemaSupport schemaSupport;
+
+    @Transactional(readOnly = true)
+    public CursorPage<PostView> search(String query, int limit, String after) {
+        String q = query.trim();
+        if (q.isEmpty() || q.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must be 1-" + MAX_QUERY_LENGTH + " characters");
+        }
+        int pageSize = Math.max(1, Math.min(limit, FeedService.MAX_PAGE_SIZE));
+        SearchCursor cursor = after == null || after.isBlank() ? null : SearchCursor.decode(after);
+        long stamp = counterAggregator.readStamp();
+
+        List<SearchHit> hits;
+        if (schemaSupport.isPostgres()) {
+            hits = postRepository.searchContent(q,
+                    cursor != null ? cursor.rank() : null,
+                    cursor != null ? cursor.id() : null,
+                    pageSize + 1);
+        } else {
+            hits = postRepository.findContentMatchesBefore(q,
+                            cursor != null ? cursor.id() : Long.MAX_VALUE,
+                            Limit.of(pageSize + 1)).stream()
+                    .map(post -> new SearchHit(post.getId(), 0))
+                    .toList();
+        }
+
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            SearchHit last = hits.get(pageSize - 1);
+            nextCursor = new SearchCursor(last.rank(), last.id()).encode();
+        }
+
+        Map<Long, Post> byId = postRepository.findAllById(hits.stream().map(SearchHit::id).toList()).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> ordered = hits.stream().map(hit -> byId.get(hit.id())).filter(Objects::nonNull).toList();
+        List<PostView> views = feedService.toViews(ordered, FeedService.DEFAULT_PREVIEW_COMMENTS);
+        return new CursorPage<>(counterAggregator.applyPending(views, stamp), nextCursor);
+    }
+}
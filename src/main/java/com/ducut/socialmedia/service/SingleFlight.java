@@ -0,0 +1,115 @@
+package com.ducut.socialmedia.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one. The first caller runs the load; callers
+ * arriving while it runs wait for its result, or its exception, instead of issuing the same
+ * query. Nothing is kept once the load finishes, so this never serves stale data.
+ *
+ * <p>Waiting is bounded by {@code maxWait}: a caller that times out gets a
+ * {@link WaitTimeoutException} rather than piling another query onto a database that is
+ * already slow. Metrics are {@code singleflight.calls}, tagged with the flight name and
+ * {@code outcome} = {@code leader} (queries run), {@code coalesced} (queries saved) or
+ * {@code timeout}, and the {@code singleflight.waiting} gauge.
+ */
+public class SingleFlight<K, V> {
+
+    /** The shared load did not finish within the wait limit. */
+    public static class WaitTimeoutException extends RuntimeException {
+        WaitTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    private final String name;
+    private final long maxWaitNanos;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.leaders = counter(meterRegistry, name, "leader");
+        this.coalesced = counter(meterRegistry, name, "coalesced");
+        this.timeouts = counter(meterRegistry, name, "timeout");
+        Gauge.builder("singleflight.waiting", waiting, AtomicInteger::get)
+                .description("Callers currently waiting on another caller's load")
+                .tag("flight", name)
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("singleflight.calls")
+                .description("Loads by whether they ran the query, shared another caller's, or gave up waiting")
+                .tag("flight", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            return await(key, running);
+        }
+        leaders.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private V await(K key, CompletableFuture<V> running) {
+        waiting.incrementAndGet();
+        try {
+            V value = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return value;
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            // The leader's own exception, so callers handle it exactly as if they had run the load
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new WaitTimeoutException("Timed out waiting for " + name + " load of " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timeouts.increment();
+            throw new WaitTimeoutException("Interrupted waiting for " + name + " load of " + key);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /** Callers currently waiting on another caller's load. */
+    int waiting() {
+        return waiting.get();
+    }
+}
@@ -0,0 +1,118 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.PageCursor;
+import com.ducut.socialmedia.model.Authored;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One post or comment read with a {@link FieldSelection}: only the requested fields, in the
+ * order they were requested, ready to serialize as a JSON object. Keeps the id, cursor and
+ * author id on the side so paging and author lookup work whatever was selected.
+ */
+final class SparseRow implements Authored {
+    private final FieldSelection selection;
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final Long id;
+    private final LocalDateTime createdAt;
+    private Long authorId;
+    private boolean authorResolved;
+
+    private SparseRow(FieldSelection selection, Long id, LocalDateTime createdAt) {
+        this.selection = selection;
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
+    /** Reads the columns from {@link FieldSelection#selectList} given {@code id} and {@code created_at}. */
+    static RowMapper<SparseRow> mapper(FieldSelection selection) {
+        return (rs, rowNum) -> {
+            SparseRow row = new SparseRow(selection, rs.getLong("id"),
+                    rs.getObject("created_at", LocalDateTime.class));
+            for (String field : selection.fields()) {
+                row.values.put(field, read(rs, field, row));
+            }
+            if (selection.needsAuthor()) {
+                row.authorId = rs.getObject("author_id", Long.class);
+            }
+            return row;
+        };
+    }
+
+    private static Object read(ResultSet rs, String field, SparseRow row) throws SQLException {
+        return switch (field) {
+            case "id" -> row.id;
+            case "createdAt" -> row.createdAt;
+            // Filled in by the author dictionary; the key is placed now to keep the field order
+            case "username", "userImageUrl" -> null;
+            case "updatedAt" -> rs.getObject("updated_at", LocalDateTime.class);
+            case "likeCount", "shareCount" -> rs.getInt(FieldSelection.column(field));
+            case "version", "commentCount" -> rs.getLong(FieldSelection.column(field));
+            default -> rs.getString(FieldSelection.column(field));
+        };
+    }
+
+    Long id() {
+        return id;
+    }
+
+    String cursor() {
+        return new PageCursor(createdAt, id).encode();
+    }
+
+    /** Adds an unflushed counter delta to a count field, if that field was selected. */
+    void addPending(String field, long delta) {
+        if (delta != 0 && values.get(field) instanceof Integer count) {
+            values.put(field, (int) (count + delta));
+        }
+    }
+
+    void put(String field, Object value) {
+        values.put(field, value);
+    }
+
+    Map<String, Object> values() {
+        return values;
+    }
+
+    @Override
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    @Override
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    @Override
+    public String getUsername() {
+        return (String) values.get("username");
+    }
+
+    @Override
+    public String getUserImageUrl() {
+        return (String) values.get("userImageUrl");
+    }
+
+    @Override
+    public boolean needsAuthor() {
+        return authorId != null && !authorResolved;
+    }
+
+    @Override
+    public void applyAuthor(String username, String userImageUrl) {
+        if (selection.has("username")) {
+            values.put("username", username);
+        }
+        if (selection.has("userImageUrl")) {
+            values.put("userImageUrl", userImageUrl);
+        }
+        authorResolved = true;
+    }
+}
@@ -0,0 +1,289 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.config.ReplicaRouting;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.dto.TrendingPost;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * In-memory top-K of posts by time-decayed engagement, behind {@code GET /api/posts/trending}.
+ *
+ * <p>Each like, share or comment adds its weight scaled by {@code 2^((now - epoch) / half-life)}.
+ * Growing new contributions instead of shrinking old ones keeps every stored score valid without
+ * touching it again, and the ranking is the same as decaying everything; the epoch is moved
+ * forward now and then so the numbers stay in range.
+ *
+ * <p>At most {@code app.trending.capacity} candidates are tracked, admitted Space-Saving style:
+ * when full, a signal for an untracked post evicts the lowest score and the post inherits it,
+ * plus its own weight. A post that keeps getting small signals therefore climbs in however
+ * full the table is. The inherited part can only overstate its score, by at most the lowest
+ * score at the time, which is small next to the leaders as long as the capacity is well
+ * above {@link #MAX_LIMIT}. The set is rebuilt at startup from the {@code capacity}
+ * best-scoring posts created within {@code app.trending.window}, treating their stored counters
+ * as if they happened at creation time.
+ *
+ * <p>Reading the top K walks the ordered set and never touches the database. The posts come from
+ * summaries (no comments) of the leading {@link #MAX_LIMIT} candidates, refreshed in one query
+ * every {@code app.trending.summary-refresh}. Their content and counts can be that much behind,
+ * and a post only shows up once the refresh has picked it up.
+ */
+@Service
+public class TrendingService {
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    // Keeps 2^exponent comfortably inside double range and precision
+    private static final double MAX_EXPONENT = 32;
+    private static final int REBUILD_FETCH_SIZE = 500;
+
+    public enum Signal {
+        LIKE(1), SHARE(3), COMMENT(2);
+
+        private final double weight;
+
+        Signal(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private record Entry(Long postId, double score) {
+    }
+
+    private static final Comparator<Entry> BY_SCORE = Comparator.comparingDouble(Entry::score)
+            .thenComparing(Entry::postId)
+            .reversed();
+
+    private final Object lock = new Object();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(BY_SCORE);
+    private long epochMillis = System.currentTimeMillis();
+    private volatile Map<Long, PostView> summaries = Map.of();
+
+    @Autowired
+    private PostQueryService postQueryService;
+
+    private final JdbcTemplate rebuildJdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final int capacity;
+    private final long halfLifeMillis;
+    private final Duration window;
+
+    public TrendingService(DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.trending.capacity:1000}") int capacity,
+                           @Value("${app.trending.half-life:6h}") Duration halfLife,
+                           @Value("${app.trending.window:3d}") Duration window) {
+        this.rebuildJdbcTemplate = new JdbcTemplate(dataSource);
+        this.rebuildJdbcTemplate.setFetchSize(REBUILD_FETCH_SIZE);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.capacity = Math.max(1, capacity);
+        this.halfLifeMillis = Math.max(1, halfLife.toMillis());
+        this.window = window;
+    }
+
+    public void record(Long postId, Signal signal) {
+        record(postId, signal, 1);
+    }
+
+    /** {@code times} signals of the same kind at once, such as the comments of one bulk insert. */
+    public void record(Long postId, Signal signal, int times) {
+        record(postId, signal.weight * times, System.currentTimeMillis());
+    }
+
+    void record(Long postId, double weight, long atMillis) {
+        synchronized (lock) {
+            rebaseIfNeeded(atMillis);
+            add(postId, weight * growth(atMillis));
+        }
+    }
+
+    public void remove(Long postId) {
+        synchronized (lock) {
+            Entry entry = entries.remove(postId);
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+        }
+    }
+
+    /** Top post ids with their scores decayed to now, best first. */
+    List<TrendingPost.Score> topScores(int limit) {
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long now = System.currentTimeMillis();
+        List<TrendingPost.Score> top = new ArrayList<>(k);
+        synchronized (lock) {
+            double toNow = 1 / growth(now);
+            Iterator<Entry> it = ranking.iterator();
+            while (it.hasNext() && top.size() < k) {
+                Entry entry = it.next();
+                top.add(new TrendingPost.Score(entry.postId(), entry.score() * toNow));
+            }
+        }
+        return top;
+    }
+
+    /** The leading posts that already have a summary, best first; no I/O. */
+    public List<TrendingPost> top(int limit) {
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Map<Long, PostView> current = summaries;
+        long now = System.currentTimeMillis();
+        List<TrendingPost> posts = new ArrayList<>(k);
+        synchronized (lock) {
+            double toNow = 1 / growth(now);
+            Iterator<Entry> it = ranking.iterator();
+            while (it.hasNext() && posts.size() < k) {
+                Entry entry = it.next();
+                PostView summary = current.get(entry.postId());
+                if (summary != null) {
+                    posts.add(new TrendingPost(entry.score() * toNow, summary));
+                }
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * Reloads the summaries of the leading candidates, from the primary so a post that was just
+     * created is not mistaken for a deleted one. Candidates whose post is gone are dropped.
+     */
+    @Scheduled(fixedDelayString = "${app.trending.summary-refresh:5s}")
+    public void refreshSummaries() {
+        try {
+            List<Long> ids = topScores(MAX_LIMIT).stream().map(TrendingPost.Score::postId).toList();
+            Map<Long, PostView> loaded = new HashMap<>();
+            if (!ids.isEmpty()) {
+                ReplicaRouting.onPrimary(() -> postQueryService.findPostSummaries(ids))
+                        .forEach(view -> loaded.put(view.id(), view));
+            }
+            ids.stream().filter(id -> !loaded.containsKey(id)).forEach(this::remove);
+            summaries = loaded;
+        } catch (Exception e) {
+            logger.error("Error refreshing trending summaries: ", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(window);
+            // Lowest score on top, so the heap holds only the best capacity rows seen so far
+            PriorityQueue<Entry> seeds = new PriorityQueue<>(Comparator.comparingDouble(Entry::score));
+            long epoch;
+            synchronized (lock) {
+                epoch = epochMillis;
+            }
+            readOnlyTx.executeWithoutResult(status -> rebuildJdbcTemplate.query(
+                    "SELECT id, created_at, like_count, share_count, comment_count FROM posts " +
+                            "WHERE created_at >= ? AND deleted_at IS NULL " +
+                            "AND like_count + share_count + comment_count > 0",
+                    rs -> {
+                        long createdAt = rs.getTimestamp("created_at").toLocalDateTime()
+                                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        double engagement = rs.getInt("like_count") * Signal.LIKE.weight
+                                + rs.getInt("share_count") * Signal.SHARE.weight
+                                + rs.getLong("comment_count") * Signal.COMMENT.weight;
+                        seeds.add(new Entry(rs.getLong("id"),
+                                engagement * Math.pow(2, (double) (createdAt - epoch) / halfLifeMillis)));
+                        if (seeds.size() > capacity) {
+                            seeds.poll();
+                        }
+                    },
+                    Timestamp.valueOf(since)));
+            synchronized (lock) {
+                // Interactions recorded while the query ran are kept on top of the seeded scores
+                double rescale = Math.pow(2, (double) (epoch - epochMillis) / halfLifeMillis);
+                seeds.forEach(seed -> seed(seed.postId(), seed.score() * rescale));
+            }
+            logger.info("Trending rebuilt from {} recent posts", seeds.size());
+        } catch (Exception e) {
+            logger.error("Error rebuilding trending posts: ", e);
+        }
+        refreshSummaries();
+    }
+
+    private double growth(long atMillis) {
+        return Math.pow(2, (double) (atMillis - epochMillis) / halfLifeMillis);
+    }
+
+    private void add(Long postId, double delta) {
+        Entry current = entries.get(postId);
+        double score = delta;
+        if (current != null) {
+            ranking.remove(current);
+            score += current.score();
+        } else if (entries.size() >= capacity) {
+            Entry lowest = ranking.pollLast();
+            entries.remove(lowest.postId());
+            score += lowest.score();
+        }
+        put(new Entry(postId, score));
+    }
+
+    /**
+     * Startup seeding: stored counters are exact, so a seed only takes the place of a lower score
+     * and never inherits one.
+     */
+    private void seed(Long postId, double delta) {
+        Entry current = entries.get(postId);
+        double score = current != null ? current.score() + delta : delta;
+        if (current != null) {
+            ranking.remove(current);
+        } else if (entries.size() >= capacity) {
+            if (score <= ranking.last().score()) {
+                return;
+            }
+            entries.remove(ranking.pollLast().postId());
+        }
+        put(new Entry(postId, score));
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.postId(), entry);
+        ranking.add(entry);
+    }
+
+    private void rebaseIfNeeded(long atMillis) {
+        double exponent = (double) (atMillis - epochMillis) / halfLifeMillis;
+        if (exponent < MAX_EXPONENT) {
+            return;
+        }
+        double factor = Math.pow(2, -exponent);
+        List<Entry> rescaled = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            rescaled.add(new Entry(entry.postId(), entry.score() * factor));
+        }
+        entries.clear();
+        ranking.clear();
+        for (Entry entry : rescaled) {
+            entries.put(entry.postId(), entry);
+            ranking.add(entry);
+        }
+        epochMillis = atMillis;
+    }
+}
@@ -0,0 +1,32 @@
+-- Schema as ddl-auto=update created it from the entities before migrations were introduced.
+-- Databases from those releases already look like this and are baselined at version 1 instead
+-- of running it (spring.flyway.baseline-on-migrate); V2 onwards bring them up to date.
+
+CREATE TABLE posts (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    content varchar(255),
+    created_at timestamp(6),
+    image_url varchar(2048),
+    like_count integer NOT NULL,
+    share_count integer NOT NULL,
+    updated_at timestamp(6),
+    user_image_url varchar(255),
+    username varchar(255),
+    video_url varchar(2048),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE comments (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    content varchar(255),
+    created_at timestamp(6),
+    image_url varchar(255),
+    like_count integer NOT NULL,
+    user_image_url varchar(255),
+    username varchar(255),
+    video_url varchar(255),
+    post_id bigint,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE comments ADD CONSTRAINT fkh4c7lvsc298whoyd4w9ta25cr FOREIGN KEY (post_id) REFERENCES posts;
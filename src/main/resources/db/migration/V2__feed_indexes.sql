@@ -0,0 +1,4 @@
+-- Feed head and keyset continuation
+CREATE INDEX idx_posts_created_at_id ON posts (created_at DESC, id DESC);
+-- Comment threads in (created_at, id) order
+CREATE INDEX idx_comments_post_created_at_id ON comments (post_id, created_at, id);
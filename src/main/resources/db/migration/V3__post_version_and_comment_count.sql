@@ -0,0 +1,11 @@
+-- Bumped by every write that changes a post's representation, comments included; feeds the ETags
+ALTER TABLE posts ADD COLUMN version bigint DEFAULT 0;
+
+-- Kept current by the comment write paths from here on; existing posts are counted once
+ALTER TABLE posts ADD COLUMN comment_count bigint DEFAULT 0;
+
+UPDATE posts p SET comment_count = c.n
+FROM (SELECT post_id, count(*) AS n FROM comments GROUP BY post_id) c
+WHERE p.id = c.post_id;
+
+COMMENT ON COLUMN posts.comment_count IS 'maintained by PostWriteService';
@@ -0,0 +1,12 @@
+-- Ids move from IDENTITY columns to sequences that hand out blocks of 50 (allocationSize on the
+-- entity sequence generators), so inserts no longer cost a round trip per row.
+CREATE SEQUENCE posts_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE comments_seq START WITH 1 INCREMENT BY 50;
+
+-- Existing rows took their ids from the identity columns; start past them so a pooled block
+-- never contains one. Empty tables leave the sequence untouched.
+SELECT setval('posts_seq', max(id) + 50) FROM posts HAVING max(id) IS NOT NULL;
+SELECT setval('comments_seq', max(id) + 50) FROM comments HAVING max(id) IS NOT NULL;
+
+ALTER TABLE posts ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY;
@@ -0,0 +1,38 @@
+-- Posts and comments carried username and user_image_url inline on every row. Each distinct
+-- pair becomes one authors row and the rows point at it. Missing values are stored as empty
+-- strings, so they still match exactly one author.
+CREATE SEQUENCE authors_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE authors (
+    id bigint NOT NULL,
+    image_url varchar(1024) NOT NULL,
+    username varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_authors_username_image_url UNIQUE (username, image_url)
+);
+
+ALTER TABLE posts ADD COLUMN author_id bigint;
+ALTER TABLE comments ADD COLUMN author_id bigint;
+
+INSERT INTO authors (id, username, image_url)
+SELECT nextval('authors_seq'), u, i FROM (
+    SELECT coalesce(username, '') AS u, coalesce(user_image_url, '') AS i FROM posts
+    UNION
+    SELECT coalesce(username, ''), coalesce(user_image_url, '') FROM comments
+) pairs;
+
+UPDATE posts t SET author_id = a.id FROM authors a
+WHERE a.username = coalesce(t.username, '') AND a.image_url = coalesce(t.user_image_url, '');
+UPDATE comments t SET author_id = a.id FROM authors a
+WHERE a.username = coalesce(t.username, '') AND a.image_url = coalesce(t.user_image_url, '');
+
+ALTER TABLE posts DROP COLUMN username, DROP COLUMN user_image_url;
+ALTER TABLE comments DROP COLUMN username, DROP COLUMN user_image_url;
+
+ALTER TABLE posts ALTER COLUMN author_id SET NOT NULL,
+    ADD CONSTRAINT fk_posts_author FOREIGN KEY (author_id) REFERENCES authors (id);
+ALTER TABLE comments ALTER COLUMN author_id SET NOT NULL,
+    ADD CONSTRAINT fk_comments_author FOREIGN KEY (author_id) REFERENCES authors (id);
+
+-- As for posts and comments: start the pooled blocks past the ids handed out above
+SELECT setval('authors_seq', max(id) + 50) FROM authors HAVING max(id) IS NOT NULL;
@@ -0,0 +1,6 @@
+-- Kept current by Postgres on every insert and update, so no write path maintains it. Adding
+-- the column rewrites the table once.
+ALTER TABLE posts ADD COLUMN content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(content, ''))) STORED;
+
+CREATE INDEX idx_posts_content_tsv ON posts USING GIN (content_tsv);
@@ -0,0 +1,5 @@
+-- Deleted posts are hidden at once and removed later by the purge job
+ALTER TABLE posts ADD COLUMN deleted_at timestamp(6);
+
+-- Lets the purge job find its work without scanning posts
+CREATE INDEX idx_posts_pending_purge ON posts (deleted_at) WHERE deleted_at IS NOT NULL;
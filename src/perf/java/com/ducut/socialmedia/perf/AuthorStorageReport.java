@@ -0,0 +1,167 @@
+package com.ducut.socialmedia.perf;
+
+import com.ducut.socialmedia.service.PostDefaults;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Compares the space taken by inline author columns with the normalized {@code authors} table.
+ *
+ * <p>Builds both layouts side by side in an on-disk H2 database in PostgreSQL mode, from the same
+ * generated rows, and reports the space each table uses. Authors follow a Zipf-like
+ * distribution, and a share of them keep the default avatar, as in production data.
+ *
+ * <p>Settings are system properties: {@code perf.posts} (50000), {@code perf.comments} (10 per
+ * post), {@code perf.authors} (5000) and {@code perf.default-avatar-share} (0.6).
+ */
+public class AuthorStorageReport {
+    private static final String COMMENT = "Totally agree, this made my day :)";
+    private static final String CONTENT = "Had a great time at the concert last night, the crowd was amazing!";
+
+    public static void main(String[] args) throws Exception {
+        int posts = Integer.getInteger("perf.posts", 50_000);
+        int commentsPerPost = Integer.getInteger("perf.comments", 10);
+        int authors = Integer.getInteger("perf.authors", 5_000);
+        double defaultAvatarShare = Double.parseDouble(System.getProperty("perf.default-avatar-share", "0.6"));
+
+        String[] usernames = new String[authors];
+        String[] avatars = new String[authors];
+        Random random = new Random(42);
+        for (int i = 0; i < authors; i++) {
+            usernames[i] = "user_" + Integer.toString(random.nextInt(1 << 30), 36);
+            avatars[i] = random.nextDouble() < defaultAvatarShare
+                    ? PostDefaults.DEFAULT_USER_IMAGE_URL
+                    : "https://randomuser.me/api/portraits/" + (random.nextBoolean() ? "men/" : "women/")
+                    + random.nextInt(100) + ".jpg";
+        }
+
+        String url = "jdbc:h2:./target/author-storage;MODE=PostgreSQL";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("CREATE TABLE posts_inline (id BIGINT PRIMARY KEY, username VARCHAR(255), " +
+                        "user_image_url VARCHAR(255), content VARCHAR(255), created_at TIMESTAMP)");
+                statement.execute("CREATE TABLE comments_inline (id BIGINT PRIMARY KEY, post_id BIGINT, " +
+                        "username VARCHAR(255), user_image_url VARCHAR(255), content VARCHAR(255), created_at TIMESTAMP)");
+                statement.execute("CREATE TABLE authors (id BIGINT PRIMARY KEY, username VARCHAR(255) NOT NULL, " +
+                        "image_url VARCHAR(1024) NOT NULL, UNIQUE (username, image_url))");
+                statement.execute("CREATE TABLE posts_normalized (id BIGINT PRIMARY KEY, author_id BIGINT, " +
+                        "content VARCHAR(255), created_at TIMESTAMP)");
+                statement.execute("CREATE TABLE comments_normalized (id BIGINT PRIMARY KEY, post_id BIGINT, " +
+                        "author_id BIGINT, content VARCHAR(255), created_at TIMESTAMP)");
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO authors VALUES (?, ?, ?)")) {
+                for (int i = 0; i < authors; i++) {
+                    insert.setLong(1, i + 1);
+                    insert.setString(2, usernames[i]);
+                    insert.setString(3, avatars[i]);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            try (PreparedStatement postInline = connection.prepareStatement(
+                    "INSERT INTO posts_inline VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)");
+                 PreparedStatement postNormalized = connection.prepareStatement(
+                         "INSERT INTO posts_normalized VALUES (?, ?, ?, CURRENT_TIMESTAMP)");
+                 PreparedStatement commentInline = connection.prepareStatement(
+                         "INSERT INTO comments_inline VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)");
+                 PreparedStatement commentNormalized = connection.prepareStatement(
+                         "INSERT INTO comments_normalized VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)")) {
+                long commentId = 0;
+                for (long postId = 1; postId <= posts; postId++) {
+                    int author = zipf(random, authors);
+                    postInline.setLong(1, postId);
+                    postInline.setString(2, usernames[author]);
+                    postInline.setString(3, avatars[author]);
+                    postInline.setString(4, CONTENT);
+                    postInline.addBatch();
+                    postNormalized.setLong(1, postId);
+                    postNormalized.setLong(2, author + 1);
+                    postNormalized.setString(3, CONTENT);
+                    postNormalized.addBatch();
+                    for (int c = 0; c < commentsPerPost; c++) {
+                        int commenter = zipf(random, authors);
+                        commentId++;
+                        commentInline.setLong(1, commentId);
+                        commentInline.setLong(2, postId);
+                        commentInline.setString(3, usernames[commenter]);
+                        commentInline.setString(4, avatars[commenter]);
+                        commentInline.setString(5, COMMENT);
+                        commentInline.addBatch();
+                        commentNormalized.setLong(1, commentId);
+                        commentNormalized.setLong(2, postId);
+                        commentNormalized.setLong(3, commenter + 1);
+                        commentNormalized.setString(4, COMMENT);
+                        commentNormalized.addBatch();
+                    }
+                    if (postId % 1000 == 0) {
+                        postInline.executeBatch();
+                        postNormalized.executeBatch();
+                        commentInline.executeBatch();
+                        commentNormalized.executeBatch();
+                    }
+                }
+                postInline.executeBatch();
+                postNormalized.executeBatch();
+                commentInline.executeBatch();
+                commentNormalized.executeBatch();
+            }
+            connection.commit();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CHECKPOINT SYNC");
+            }
+
+            long postsInline = size(connection, "POSTS_INLINE");
+            long commentsInline = size(connection, "COMMENTS_INLINE");
+            long postsNormalized = size(connection, "POSTS_NORMALIZED");
+            long commentsNormalized = size(connection, "COMMENTS_NORMALIZED");
+            long authorTable = size(connection, "AUTHORS");
+            long inline = postsInline + commentsInline;
+            long normalized = postsNormalized + commentsNormalized + authorTable;
+
+            System.out.printf("%d posts, %d comments, %d authors, %.0f%% default avatar%n",
+                    posts, (long) posts * commentsPerPost, authors, defaultAvatarShare * 100);
+            System.out.printf("%-22s %12s %12s%n", "table", "inline KB", "normalized KB");
+            System.out.printf("%-22s %12d %12d%n", "posts", postsInline / 1024, postsNormalized / 1024);
+            System.out.printf("%-22s %12d %12d%n", "comments", commentsInline / 1024, commentsNormalized / 1024);
+            System.out.printf("%-22s %12s %12d%n", "authors", "-", authorTable / 1024);
+            System.out.printf("%-22s %12d %12d  (%.1f%% smaller)%n", "total", inline / 1024, normalized / 1024,
+                    100.0 * (inline - normalized) / inline);
+            System.out.printf("inline author text per row: %.1f bytes on average%n",
+                    averageInlineBytes(connection));
+        }
+    }
+
+    /** Roughly Zipf(1): a handful of authors write most rows, as on any social feed. */
+    private static int zipf(Random random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.pow(n + 1, random.nextDouble()) - 1));
+    }
+
+    private static long size(Connection connection, String table) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("SELECT DISK_SPACE_USED(?)")) {
+            query.setString(1, table);
+            try (ResultSet rs = query.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static double averageInlineBytes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT AVG(OCTET_LENGTH(username) + OCTET_LENGTH(user_image_url)) " +
+                     "FROM comments_inline")) {
+            rs.next();
+            return rs.getDouble(1);
+        }
+    }
+}
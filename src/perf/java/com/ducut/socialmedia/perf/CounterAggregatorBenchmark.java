@@ -0,0 +1,64 @@
+package com.ducut.socialmedia.perf;
+
+import com.ducut.socialmedia.service.CounterAggregator;
+import com.ducut.socialmedia.service.CounterAggregator.Counter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory side of a like/share tap. {@code posts = 1} is a single viral post where every
+ * thread contends on one cell; larger values spread taps across cells. Flushing needs a
+ * database and is covered by the load-test harness instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CounterAggregatorBenchmark {
+
+    @Param({"1", "10000"})
+    public int posts;
+
+    private CounterAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        aggregator = new CounterAggregator();
+    }
+
+    private long nextId() {
+        return posts == 1 ? 1L : ThreadLocalRandom.current().nextLong(posts) + 1;
+    }
+
+    @Benchmark
+    public void likePost() {
+        aggregator.increment(Counter.POST_LIKES, nextId());
+    }
+
+    @Benchmark
+    public void likeComment() {
+        long postId = nextId();
+        aggregator.increment(Counter.COMMENT_LIKES, postId * 100, postId);
+    }
+
+    @Benchmark
+    public long readPending() {
+        return aggregator.pendingDelta(Counter.POST_LIKES, nextId());
+    }
+}
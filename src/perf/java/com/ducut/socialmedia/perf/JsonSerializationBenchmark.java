@@ -0,0 +1,138 @@
+package com.ducut.socialmedia.perf;
+
+import com.ducut.socialmedia.dto.CommentView;
+import com.ducut.socialmedia.dto.PostView;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON cost of the post payloads: the {@link Post} entity with its nested comments (what the
+ * write endpoints return), the {@link PostView} read model, and parsing a bulk create body.
+ * Also the same view as Smile and CBOR, and the sparse {@code ?fields=id,username,content,likeCount}
+ * row a mobile client asks for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    private static final TypeReference<List<Post>> POST_LIST = new TypeReference<>() {
+    };
+
+    @Param({"0", "10", "100"})
+    public int comments;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper smileMapper;
+    private ObjectMapper cborMapper;
+    private Post post;
+    private PostView view;
+    private Map<String, Object> sparseView;
+    private byte[] bulkBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same feature set Spring Boot applies to the MVC converter
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        smileMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(new SmileFactory())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        cborMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(new CBORFactory())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        post = samplePost(1L);
+        for (int i = 0; i < comments; i++) {
+            Comment comment = new Comment("commenter" + i, null, "comment body number " + i, null, null, post);
+            comment.setId((long) i);
+            comment.setLikeCount(i);
+            post.getComments().add(comment);
+        }
+        view = PostView.from(post, comments, post.getComments().stream().map(CommentView::from).toList());
+        sparseView = new LinkedHashMap<>();
+        sparseView.put("id", view.id());
+        sparseView.put("username", view.username());
+        sparseView.put("content", view.content());
+        sparseView.put("likeCount", view.likeCount());
+
+        List<Post> bulk = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            Post row = samplePost(i);
+            row.setId(null);
+            bulk.add(row);
+        }
+        bulkBody = objectMapper.writeValueAsBytes(bulk);
+    }
+
+    private static Post samplePost(long id) {
+        Post post = new Post("user" + id, "https://randomuser.me/api/portraits/lego/1.jpg",
+                "  Sample content for post " + id + " with a few words of padding  ",
+                "https://example.com/images/" + id + ".jpg", null);
+        post.setId(id);
+        post.setCreatedAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id));
+        post.setUpdatedAt(post.getCreatedAt());
+        post.setLikeCount(42);
+        post.setShareCount(7);
+        return post;
+    }
+
+    @Benchmark
+    public byte[] writePostEntity() throws Exception {
+        return objectMapper.writeValueAsBytes(post);
+    }
+
+    @Benchmark
+    public byte[] writePostView() throws Exception {
+        return objectMapper.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public byte[] writePostViewSmile() throws Exception {
+        return smileMapper.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public byte[] writePostViewCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public byte[] writeSparseView() throws Exception {
+        return objectMapper.writeValueAsBytes(sparseView);
+    }
+
+    @Benchmark
+    public List<Post> readBulkBody() throws Exception {
+        return objectMapper.readValue(bulkBody, POST_LIST);
+    }
+}
@@ -0,0 +1,306 @@
+package com.ducut.socialmedia.perf;
+
+import com.ducut.socialmedia.SocialmediaApplication;
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Offline end-to-end load test. Boots the application on an in-memory H2 database in PostgreSQL
+ * mode, seeds it, then drives each endpoint in turn with a fixed number of closed-loop clients
+ * and reports throughput and p50/p99/p999 latency per endpoint.
+ *
+ * <p>Settings are system properties: {@code perf.concurrency} (32), {@code perf.warmup-seconds}
+ * (5), {@code perf.duration-seconds} (10), {@code perf.seed.posts} (2000),
+ * {@code perf.seed.comments} (5 per post), {@code perf.output} (JSON results file),
+ * {@code perf.baseline} (earlier results file to gate against) and {@code perf.tolerance}
+ * (allowed relative regression, 0.2). Any other Spring property can be passed the same way,
+ * e.g. {@code -Dspring.profiles.active=virtual-threads}. With a baseline the process exits
+ * with status 1 if an endpoint's p99 or throughput regressed past the tolerance.
+ */
+public class LoadTestHarness {
+    // p99 differences below this are noise on an in-memory database
+    private static final double P99_SLACK_MS = 1.0;
+
+    private static final String[] WORDS = {
+            "coffee", "weekend", "travel", "music", "sunset", "coding", "garden", "football", "recipe", "concert"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private long maxPostId;
+
+    record Scenario(String name, Function<ThreadLocalRandom, HttpRequest> request) {
+    }
+
+    record Result(String endpoint, long requests, long errors, double throughput,
+                  double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+    }
+
+    LoadTestHarness(String baseUrl, int concurrency, Duration warmup, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Passed as command-line arguments so they beat application.properties; -D system properties win over these
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("spring.datasource.url",
+                "jdbc:h2:mem:perf;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("spring.jpa.properties.hibernate.format_sql", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.org.hibernate.orm.jdbc.bind", "WARN");
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        defaults.forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                arguments.add("--" + key + "=" + value);
+            }
+        });
+
+        int exitCode;
+        try (ConfigurableApplicationContext context = SpringApplication.run(
+                SocialmediaApplication.class, arguments.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestHarness harness = new LoadTestHarness(
+                    "http://localhost:" + port + "/api/posts",
+                    Integer.getInteger("perf.concurrency", 32),
+                    Duration.ofSeconds(Integer.getInteger("perf.warmup-seconds", 5)),
+                    Duration.ofSeconds(Integer.getInteger("perf.duration-seconds", 10)));
+
+            harness.seed(context.getBean(PostRepository.class),
+                    Integer.getInteger("perf.seed.posts", 2000),
+                    Integer.getInteger("perf.seed.comments", 5));
+            List<Result> results = harness.runAll();
+            harness.print(results);
+            exitCode = harness.report(results);
+        }
+        System.exit(exitCode);
+    }
+
+    void seed(PostRepository postRepository, int posts, int commentsPerPost) {
+        List<Post> batch = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < posts; i++) {
+            Post post = new Post("user" + (i % 200), null,
+                    "Post " + i + " about " + WORDS[i % WORDS.length] + " and " + WORDS[(i * 7) % WORDS.length],
+                    null, null);
+            post.setCreatedAt(start.plusSeconds(i));
+            post.setUpdatedAt(post.getCreatedAt());
+            for (int c = 0; c < commentsPerPost; c++) {
+                post.addComment(new Comment("user" + (c % 50), null, "Comment " + c + " on post " + i,
+                        null, null, post));
+            }
+            batch.add(post);
+            if (batch.size() == 500) {
+                maxPostId = Math.max(maxPostId, lastId(postRepository.saveAll(batch)));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            maxPostId = Math.max(maxPostId, lastId(postRepository.saveAll(batch)));
+        }
+        postRepository.recountComments();
+        System.out.printf("Seeded %d posts with %d comments each%n", posts, commentsPerPost);
+    }
+
+    private static long lastId(List<Post> saved) {
+        return saved.get(saved.size() - 1).getId();
+    }
+
+    List<Scenario> scenarios() throws Exception {
+        // A cursor into the middle of the feed, so page two is measured separately from the cached head
+        JsonNode head = objectMapper.readTree(
+                client.send(get(""), HttpResponse.BodyHandlers.ofByteArray()).body());
+        String cursor = URLEncoder.encode(head.path("nextCursor").asText(), StandardCharsets.UTF_8);
+
+        return List.of(
+                new Scenario("GET /api/posts", random -> get("")),
+                new Scenario("GET /api/posts?before", random -> get("?before=" + cursor)),
+                new Scenario("GET /api/posts/{id}", random -> get("/" + randomPost(random))),
+                new Scenario("GET /api/posts/{id}/comments", random -> get("/" + randomPost(random) + "/comments")),
+                new Scenario("GET /api/posts/search", random -> get("/search?q=" + WORDS[random.nextInt(WORDS.length)])),
+                new Scenario("POST /api/posts/{id}/like", random -> post("/" + randomPost(random) + "/like", "")),
+                new Scenario("POST /api/posts", random -> post("",
+                        "{\"username\":\"loadtest\",\"content\":\"load test post " + random.nextInt() + "\"}")),
+                new Scenario("POST /api/posts/{id}/comments", random -> post("/" + randomPost(random) + "/comments",
+                        "{\"username\":\"loadtest\",\"content\":\"load test comment\"}")));
+    }
+
+    private long randomPost(ThreadLocalRandom random) {
+        // Skewed towards recent posts, like real traffic; the pooled sequence may leave gaps
+        long recent = Math.max(1, maxPostId / 10);
+        return random.nextInt(4) == 0 ? random.nextLong(1, maxPostId + 1) : maxPostId - random.nextLong(recent);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    List<Result> runAll() throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (Scenario scenario : scenarios()) {
+            run(scenario, warmup);
+            results.add(run(scenario, duration));
+        }
+        return results;
+    }
+
+    private Result run(Scenario scenario, Duration length) throws Exception {
+        long deadline = System.nanoTime() + length.toNanos();
+        List<Future<long[]>> workers = new ArrayList<>();
+        long[] errors = new long[concurrency];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                int worker = w;
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = scenario.request().apply(random);
+                        long started = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        long elapsed = System.nanoTime() - started;
+                        if (status < 200 || status >= 400) {
+                            errors[worker]++;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = elapsed;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Result(scenario.name(), all.length, Arrays.stream(errors).sum(),
+                all.length / (double) length.toSeconds(),
+                percentileMs(all, 0.50), percentileMs(all, 0.99), percentileMs(all, 0.999),
+                all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    void print(List<Result> results) {
+        System.out.printf("%nconcurrency=%d warmup=%ds duration=%ds%n", concurrency, warmup.toSeconds(), duration.toSeconds());
+        System.out.printf("%-32s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Result r : results) {
+            System.out.printf("%-32s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    r.endpoint(), r.requests(), r.errors(), r.throughput(), r.p50Ms(), r.p99Ms(), r.p999Ms(), r.maxMs());
+        }
+    }
+
+    /** Writes the results file and compares against the baseline; returns the exit code. */
+    int report(List<Result> results) throws Exception {
+        String output = System.getProperty("perf.output");
+        if (output != null && !output.isBlank()) {
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("concurrency", concurrency);
+            document.put("durationSeconds", duration.toSeconds());
+            document.put("results", results);
+            File file = new File(output);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, document);
+            System.out.println("Results written to " + file.getAbsolutePath());
+        }
+
+        String baselinePath = System.getProperty("perf.baseline");
+        if (baselinePath == null || baselinePath.isBlank()) {
+            return 0;
+        }
+        double tolerance = Double.parseDouble(System.getProperty("perf.tolerance", "0.2"));
+        Map<String, JsonNode> baseline = new LinkedHashMap<>();
+        objectMapper.readTree(new File(baselinePath)).path("results")
+                .forEach(node -> baseline.put(node.path("endpoint").asText(), node));
+
+        int regressions = 0;
+        for (Result result : results) {
+            JsonNode before = baseline.get(result.endpoint());
+            if (before == null) {
+                continue;
+            }
+            double p99Limit = before.path("p99Ms").asDouble() * (1 + tolerance) + P99_SLACK_MS;
+            double throughputFloor = before.path("throughput").asDouble() * (1 - tolerance);
+            if (result.p99Ms() > p99Limit || result.throughput() < throughputFloor) {
+                regressions++;
+                System.out.printf("REGRESSION %s: p99 %.2f ms (limit %.2f), %.1f req/s (floor %.1f)%n",
+                        result.endpoint(), result.p99Ms(), p99Limit, result.throughput(), throughputFloor);
+            }
+        }
+        System.out.printf("%d regression(s) against %s at tolerance %.0f%%%n", regressions, baselinePath, tolerance * 100);
+        return regressions == 0 ? 0 : 1;
+    }
+}
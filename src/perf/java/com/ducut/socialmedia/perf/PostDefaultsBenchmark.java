@@ -0,0 +1,80 @@
+package com.ducut.socialmedia.perf;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.service.PostDefaults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation, trimming and defaulting as done per row by {@code createPost} and
+ * {@code createPostsBulk}. {@link PostDefaults#applyDefaults} mutates its argument, so each
+ * operation builds a fresh {@link Post} the way Jackson would; {@code buildOnly} measures that
+ * part alone so it can be subtracted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostDefaultsBenchmark {
+    private static final int ROWS = 1024;
+
+    private String[][] rows;
+
+    @Setup
+    public void setUp() {
+        rows = new String[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            // Mix of what clients actually send: padded text, missing author, media-only, empty
+            rows[i] = switch (i % 4) {
+                case 0 -> new String[]{"user" + i, null, "  some padded content " + i + "  ", null, null};
+                case 1 -> new String[]{null, "", "content " + i, null, null};
+                case 2 -> new String[]{"user" + i, null, null, " https://example.com/" + i + ".jpg ", null};
+                default -> new String[]{"   ", null, "   ", null, ""};
+            };
+        }
+    }
+
+    private static Post build(String[] row) {
+        return new Post(row[0], row[1], row[2], row[3], row[4]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void buildOnly(Blackhole blackhole) {
+        for (String[] row : rows) {
+            blackhole.consume(build(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void validateAndDefault(Blackhole blackhole) {
+        for (String[] row : rows) {
+            Post post = build(row);
+            if (!PostDefaults.hasBody(post)) {
+                blackhole.consume(false);
+                continue;
+            }
+            PostDefaults.applyDefaults(post);
+            LocalDateTime now = LocalDateTime.now();
+            post.setCreatedAt(now);
+            post.setUpdatedAt(now);
+            blackhole.consume(post);
+        }
+    }
+}
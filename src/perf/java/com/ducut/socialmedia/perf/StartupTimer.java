@@ -0,0 +1,179 @@
+package com.ducut.socialmedia.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time to first request for each startup path, side by side. Starts the packaged application in
+ * a fresh JVM per run and measures from process launch until {@code GET /api/posts} answers 200,
+ * alongside the startup time Spring itself logs.
+ *
+ * <p>The jar is extracted first, because class-data sharing needs plain jars on the classpath, and
+ * every path runs from the extracted layout so only the startup settings differ. CDS archives
+ * come from a training run, as in the Dockerfile. A jar built with {@code -Paot} adds the AOT
+ * paths, with an archive of their own, since AOT startup loads different classes. The database
+ * is whatever {@code DATABASE_URL} points at; it must already be migrated, otherwise the first
+ * run also pays for the migration.
+ *
+ * <p>Settings are system properties: {@code perf.jar} (the packaged jar), {@code perf.runs} (5
+ * per path), {@code perf.port} (18090) and {@code perf.work-dir} ({@code target/startup}).
+ */
+public class StartupTimer {
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+    record Result(String path, List<Long> firstRequestMs, List<Long> startedMs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        File jar = new File(System.getProperty("perf.jar", "target/final-api-0.0.1-SNAPSHOT.jar"));
+        int runs = Integer.getInteger("perf.runs", 5);
+        int port = Integer.getInteger("perf.port", 18090);
+        Path workDir = Path.of(System.getProperty("perf.work-dir", "target/startup"));
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        exec(workDir, "extract.log", java, "-Djarmode=tools", "-jar", jar.getAbsolutePath(),
+                "extract", "--force", "--destination", workDir.toAbsolutePath().toString());
+        Path app = workDir.resolve(jar.getName());
+        boolean aot = hasAotClasses(app);
+        if (!aot) {
+            System.out.println(jar + " has no AOT classes; build it with mvn -Paot package to compare AOT too");
+        }
+
+        Map<String, List<String>> paths = new LinkedHashMap<>();
+        // The previous default: Hibernate diffs the schema against the database on every boot
+        paths.put("ddl-auto=update", List.of("-Dspring.flyway.enabled=false",
+                "-Dspring.jpa.hibernate.ddl-auto=update",
+                "-Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=true"));
+        paths.put("migrations", List.of());
+        // What the Docker image runs
+        paths.put("migrations + CDS", cds(train(java, workDir, app, "app.jsa")));
+        if (aot) {
+            paths.put("migrations + AOT", List.of("-Dspring.aot.enabled=true"));
+            List<String> aotCds = new ArrayList<>(List.of("-Dspring.aot.enabled=true"));
+            aotCds.addAll(cds(train(java, workDir, app, "app-aot.jsa", "-Dspring.aot.enabled=true")));
+            paths.put("migrations + AOT + CDS", aotCds);
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        Map<String, Result> results = new LinkedHashMap<>();
+        paths.keySet().forEach(path -> results.put(path, new Result(path, new ArrayList<>(), new ArrayList<>())));
+        // Interleaved, so drift on the machine spreads over all paths instead of favouring one
+        for (int run = 1; run <= runs; run++) {
+            for (Map.Entry<String, List<String>> path : paths.entrySet()) {
+                List<String> command = new ArrayList<>(List.of(java));
+                command.addAll(path.getValue());
+                command.addAll(List.of("-jar", app.toAbsolutePath().toString(), "--server.port=" + port));
+                Path log = workDir.resolve("run-" + run + "-" + path.getKey().replaceAll("\\W+", "-") + ".log");
+                long[] timing = timeFirstRequest(client, command, log, port);
+                results.get(path.getKey()).firstRequestMs().add(timing[0]);
+                results.get(path.getKey()).startedMs().add(timing[1]);
+                System.out.printf("run %d %-24s first request %6d ms, Spring started %6d ms%n",
+                        run, path.getKey(), timing[0], timing[1]);
+            }
+        }
+
+        System.out.printf("%nruns=%d, median (min-max) in ms%n", runs);
+        System.out.printf("%-24s %22s %22s%n", "startup path", "first request", "Spring started");
+        for (Result result : results.values()) {
+            System.out.printf("%-24s %22s %22s%n", result.path(),
+                    summary(result.firstRequestMs()), summary(result.startedMs()));
+        }
+    }
+
+    private static long[] timeFirstRequest(HttpClient client, List<String> command, Path log, int port)
+            throws Exception {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/posts?limit=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = start + START_TIMEOUT.toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited during startup; see " + log);
+                }
+                try {
+                    if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("No answer within " + START_TIMEOUT + "; see " + log);
+                }
+                Thread.sleep(10);
+            }
+            long firstRequestMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Matcher started = STARTED.matcher(Files.readString(log));
+            long startedMs = started.find() ? Math.round(Double.parseDouble(started.group(1)) * 1000) : -1;
+            return new long[]{firstRequestMs, startedMs};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /** Starts the context once without a database and writes the classes it loaded to {@code name}. */
+    private static Path train(String java, Path workDir, Path app, String name, String... settings)
+            throws Exception {
+        Path archive = workDir.resolve(name);
+        Files.deleteIfExists(archive);
+        List<String> command = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath()));
+        command.addAll(Arrays.asList(settings));
+        command.addAll(List.of("-Dspring.context.exit=onRefresh", "-Dapp.migrations.on-startup=false",
+                "-jar", app.toAbsolutePath().toString()));
+        exec(workDir, "training-" + name + ".log", command.toArray(String[]::new));
+        return archive;
+    }
+
+    private static List<String> cds(Path archive) {
+        return List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath(), "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+    }
+
+    private static boolean hasAotClasses(Path app) throws IOException {
+        try (JarFile jarFile = new JarFile(app.toFile())) {
+            return jarFile.stream().anyMatch(entry -> entry.getName().endsWith("__ApplicationContextInitializer.class"));
+        }
+    }
+
+    private static void exec(Path workDir, String logName, String... command) throws Exception {
+        Files.createDirectories(workDir);
+        Path log = workDir.resolve(logName);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(Arrays.toString(command) + " failed; see " + log);
+        }
+    }
+
+    private static String summary(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().toList();
+        return String.format("%d (%d-%d)", sorted.get(sorted.size() / 2), sorted.get(0), sorted.get(sorted.size() - 1));
+    }
+}
@@ -0,0 +1,58 @@
+package com.ducut.socialmedia.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTests {
+
+    @Test
+    void rejectsFastOncePermitsAreExhaustedAndRecoversAfterwards() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(1, Duration.ofMillis(20));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<MockHttpServletResponse> held = executor.submit(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/posts"), response, (req, res) -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return response;
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts/1"), rejected, (req, res) -> { });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+
+        // Non-API paths such as health checks are never gated
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, (req, res) -> { });
+        assertThat(health.getStatus()).isEqualTo(200);
+
+        release.countDown();
+        assertThat(held.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        executor.shutdown();
+
+        assertThat(filter.availablePermits()).isEqualTo(1);
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts/1"), admitted, (req, res) -> { });
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ducut.socialmedia.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Two in-memory databases stand in for the primary and the replica; each knows its own name. */
+class ReplicaRoutingTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicBoolean replicaDown = new AtomicBoolean();
+    private ReplicaRouting routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate readWriteTx;
+
+    private static DriverManagerDataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+        setup.update("DELETE FROM node");
+        setup.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    @BeforeEach
+    void setUp() {
+        SwitchableDataSource replica = new SwitchableDataSource(database("routing-replica"));
+        routing = new ReplicaRouting(database("routing-primary"), replica, meterRegistry);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing.dataSource());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        readWriteTx = new TransactionTemplate(transactionManager);
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private String nodeIn(TransactionTemplate tx) {
+        return tx.execute(status -> node());
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("routing-replica");
+        assertThat(nodeIn(readWriteTx)).isEqualTo("routing-primary");
+        assertThat(node()).isEqualTo("routing-primary");
+    }
+
+    @Test
+    void pinnedThreadsReadFromThePrimary() {
+        ReplicaRouting.pin();
+        try {
+            assertThat(nodeIn(readOnlyTx)).isEqualTo("routing-primary");
+        } finally {
+            ReplicaRouting.unpin();
+        }
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("routing-replica");
+    }
+
+    @Test
+    void onPrimaryPinsOnlyForTheLoad() {
+        assertThat(ReplicaRouting.onPrimary(() -> nodeIn(readOnlyTx))).isEqualTo("routing-primary");
+        assertThat(ReplicaRouting.isPinned()).isFalse();
+
+        // Leaves an outer pin in place
+        ReplicaRouting.pin();
+        try {
+            ReplicaRouting.onPrimary(() -> nodeIn(readOnlyTx));
+            assertThat(ReplicaRouting.isPinned()).isTrue();
+        } finally {
+            ReplicaRouting.unpin();
+        }
+    }
+
+    @Test
+    void fallsBackToThePrimaryUntilTheReplicaRecovers() {
+        replicaDown.set(true);
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("routing-primary");
+        assertThat(routing.isReplicaAvailable()).isFalse();
+        assertThat(meterRegistry.get("datasource.replica.available").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.replica.fallbacks").counter().count()).isEqualTo(1);
+
+        // Stays on the primary without retrying the replica on every read
+        replicaDown.set(false);
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("routing-primary");
+
+        routing.checkReplica();
+        assertThat(routing.isReplicaAvailable()).isTrue();
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("routing-replica");
+
+        replicaDown.set(true);
+        routing.checkReplica();
+        assertThat(routing.isReplicaAvailable()).isFalse();
+    }
+
+    @Test
+    void readYourWritesFilterPinsWritesAndRecentWriters() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+        AtomicReference<Boolean> pinnedInChain = new AtomicReference<>();
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/posts"), written,
+                (req, res) -> pinnedInChain.set(ReplicaRouting.isPinned()));
+        assertThat(pinnedInChain.get()).isTrue();
+        assertThat(ReplicaRouting.isPinned()).isFalse();
+        Cookie cookie = written.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest recent = new MockHttpServletRequest("GET", "/api/posts");
+        recent.setCookies(cookie);
+        filter.doFilter(recent, new MockHttpServletResponse(), (req, res) -> pinnedInChain.set(ReplicaRouting.isPinned()));
+        assertThat(pinnedInChain.get()).isTrue();
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/posts");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        filter.doFilter(expired, new MockHttpServletResponse(), (req, res) -> pinnedInChain.set(ReplicaRouting.isPinned()));
+        assertThat(pinnedInChain.get()).isFalse();
+
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/posts"), read,
+                (req, res) -> pinnedInChain.set(ReplicaRouting.isPinned()));
+        assertThat(pinnedInChain.get()).isFalse();
+        assertThat(read.getCookie(ReadYourWritesFilter.COOKIE)).isNull();
+    }
+
+    /** The replica, with a switch to make it refuse connections. */
+    private class SwitchableDataSource extends DelegatingDataSource {
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (replicaDown.get()) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
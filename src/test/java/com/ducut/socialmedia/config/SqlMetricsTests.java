@@ -0,0 +1,71 @@
+package com.ducut.socialmedia.config;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.PostCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SqlMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void statementsAreAttributedToTheRequestThatRanThem() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "measured", null, null)).getId();
+        postCache.invalidateAll();
+
+        mockMvc.perform(get("/api/posts/{id}", id)).andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.get("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/api/posts/{id}")
+                .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isGreaterThan(0);
+        assertThat(meterRegistry.get("http.server.requests.sql.time")
+                .tags("method", "GET", "uri", "/api/posts/{id}")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("db.statements").tag("operation", "select").timer().count()).isPositive();
+
+        // Served from cache: recorded, but no statements
+        mockMvc.perform(get("/api/posts/{id}", id)).andExpect(status().isOk());
+        assertThat(statements.count()).isEqualTo(2);
+        assertThat(statements.max()).isGreaterThan(0);
+    }
+
+    @Test
+    void poolMetricsSeeThroughTheProxy() {
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").gauge()).isNotNull();
+    }
+
+    @Test
+    void classifiesStatementsByLeadingKeyword() {
+        assertThat(SqlMetrics.operationOf("  select 1")).isEqualTo(SqlMetrics.Operation.SELECT);
+        assertThat(SqlMetrics.operationOf("WITH x AS (SELECT 1) SELECT * FROM x")).isEqualTo(SqlMetrics.Operation.SELECT);
+        assertThat(SqlMetrics.operationOf("UPDATE posts SET like_count = like_count + ?")).isEqualTo(SqlMetrics.Operation.UPDATE);
+        assertThat(SqlMetrics.operationOf("insert into posts")).isEqualTo(SqlMetrics.Operation.INSERT);
+        assertThat(SqlMetrics.operationOf("call next value for posts_seq")).isEqualTo(SqlMetrics.Operation.OTHER);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.repository.AuthorRepository;
+import com.ducut.socialmedia.service.AuthorDictionary;
+import com.ducut.socialmedia.service.PostCache;
+import com.ducut.socialmedia.service.PostDefaults;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthorDictionaryTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private AuthorDictionary authorDictionary;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long createPost(String body) throws Exception {
+        String response = mockMvc.perform(post("/api/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authorId").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    @Test
+    void repeatedAuthorsAreStoredOnceAndResponsesKeepTheirShape() throws Exception {
+        long first = createPost("{\"content\":\"one\"}");
+        long second = createPost("{\"content\":\"two\"}");
+        long named = createPost("{\"content\":\"three\",\"username\":\"dict-alice\",\"userImageUrl\":\"https://example.com/alice.png\"}");
+        mockMvc.perform(post("/api/posts/{id}/comments", first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hi\",\"username\":\"dict-alice\",\"userImageUrl\":\"https://example.com/alice.png\"}"))
+                .andExpect(status().isOk());
+
+        Long defaultAuthor = jdbcTemplate.queryForObject("SELECT author_id FROM posts WHERE id = ?", Long.class, first);
+        assertThat(jdbcTemplate.queryForObject("SELECT author_id FROM posts WHERE id = ?", Long.class, second))
+                .isEqualTo(defaultAuthor);
+        Long alice = jdbcTemplate.queryForObject("SELECT author_id FROM posts WHERE id = ?", Long.class, named);
+        assertThat(jdbcTemplate.queryForObject("SELECT author_id FROM comments WHERE post_id = ?", Long.class, first))
+                .isEqualTo(alice);
+        assertThat(authorRepository.findAll()).filteredOn(a -> a.getUsername().equals("dict-alice")).hasSize(1);
+
+        // Reads after a restart start from an empty dictionary
+        authorDictionary.invalidateAll();
+        postCache.invalidateAll();
+        JsonNode post = objectMapper.readTree(mockMvc.perform(get("/api/posts/{id}", first))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(post.get("username").asText()).isEqualTo(PostDefaults.ANONYMOUS);
+        assertThat(post.get("userImageUrl").asText()).isEqualTo(PostDefaults.DEFAULT_USER_IMAGE_URL);
+        assertThat(post.get("comments").get(0).get("username").asText()).isEqualTo("dict-alice");
+        assertThat(post.get("comments").get(0).get("userImageUrl").asText()).isEqualTo("https://example.com/alice.png");
+        assertThat(post.has("authorId")).isFalse();
+    }
+
+    @Test
+    void renamingAPostPointsItAtTheNewAuthor() throws Exception {
+        long id = createPost("{\"content\":\"rename me\",\"username\":\"dict-before\"}");
+        mockMvc.perform(put("/api/posts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"renamed\",\"username\":\"dict-after\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("dict-after"));
+
+        authorDictionary.invalidateAll();
+        postCache.invalidateAll();
+        mockMvc.perform(get("/api/posts/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("dict-after"))
+                .andExpect(jsonPath("$.content").value("renamed"));
+    }
+
+    @Test
+    void authorsFromARolledBackTransactionAreNotCached() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            authorDictionary.idFor("dict-rolled-back", null);
+            status.setRollbackOnly();
+        });
+
+        long id = createPost("{\"content\":\"after rollback\",\"username\":\"dict-rolled-back\"}");
+        Long authorId = jdbcTemplate.queryForObject("SELECT author_id FROM posts WHERE id = ?", Long.class, id);
+        assertThat(authorRepository.findById(authorId)).get()
+                .extracting(author -> author.getUsername()).isEqualTo("dict-rolled-back");
+    }
+}
@@ -0,0 +1,162 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.CounterAggregator;
+import com.ducut.socialmedia.service.PostCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BatchEndpointsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long newPost(String content) {
+        return postRepository.save(new Post("batch-author", null, content, null, null)).getId();
+    }
+
+    private Long addComment(Long postId, String content) throws Exception {
+        String body = mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"batch-commenter\",\"content\":\"" + content + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("comment").get("id").asLong();
+    }
+
+    private static String join(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    @Test
+    void multiGetReturnsPostsInRequestedOrderAndListsMissingIds() throws Exception {
+        Long first = newPost("batch first");
+        Long second = newPost("batch second");
+        addComment(second, "one");
+        addComment(second, "two");
+        // One cached, one loaded
+        mockMvc.perform(get("/api/posts/{id}", first)).andExpect(status().isOk());
+        counterAggregator.increment(CounterAggregator.Counter.POST_LIKES, second);
+
+        mockMvc.perform(get("/api/posts").param("ids", join(List.of(second, -1L, first, second))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(second))
+                .andExpect(jsonPath("$.items[0].likeCount").value(1))
+                .andExpect(jsonPath("$.items[0].commentCount").value(2))
+                .andExpect(jsonPath("$.items[0].comments[0].content").value("one"))
+                .andExpect(jsonPath("$.items[0].comments[1].content").value("two"))
+                .andExpect(jsonPath("$.items[1].id").value(first))
+                .andExpect(jsonPath("$.missing[0]").value(-1));
+    }
+
+    @Test
+    void multiGetUsesFixedNumberOfStatementsRegardlessOfBatchSize() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Long id = newPost("batch post " + i);
+            if (i % 3 == 0) {
+                addComment(id, "comment " + i);
+            }
+            ids.add(id);
+        }
+        assertThat(statementsFor(ids.subList(0, 4))).isLessThanOrEqualTo(2);
+        assertThat(statementsFor(ids)).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void multiGetRejectsOversizedBatches() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= 101; i++) {
+            ids.add(i);
+        }
+        mockMvc.perform(get("/api/posts").param("ids", join(ids)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void reactionsAreValidatedTogetherAndAppliedPerItem() throws Exception {
+        Long postId = newPost("reaction target");
+        Long otherPost = newPost("reaction other");
+        Long commentId = addComment(postId, "liked comment");
+        String body = """
+                [
+                  {"type": "like", "postId": %1$d},
+                  {"type": "like", "postId": %1$d},
+                  {"type": "share", "postId": %1$d},
+                  {"type": "comment_like", "postId": %1$d, "commentId": %2$d},
+                  {"type": "comment_like", "postId": %3$d, "commentId": %2$d},
+                  {"type": "like", "postId": -1},
+                  {"type": "comment_like", "postId": %1$d}
+                ]
+                """.formatted(postId, commentId, otherPost);
+
+        mockMvc.perform(post("/api/posts/reactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(7))
+                .andExpect(jsonPath("$.applied").value(4))
+                .andExpect(jsonPath("$.results[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[3].type").value("comment_like"))
+                .andExpect(jsonPath("$.results[3].status").value("APPLIED"))
+                .andExpect(jsonPath("$.results[4].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.results[5].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.results[6].status").value("INVALID"));
+
+        counterAggregator.flush();
+        mockMvc.perform(get("/api/posts/{id}", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likeCount").value(2))
+                .andExpect(jsonPath("$.shareCount").value(1))
+                .andExpect(jsonPath("$.comments[0].likeCount").value(1));
+        mockMvc.perform(get("/api/posts/{id}", otherPost))
+                .andExpect(jsonPath("$.likeCount").value(0));
+    }
+
+    private long statementsFor(List<Long> ids) throws Exception {
+        postCache.invalidateAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/posts").param("ids", join(ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(ids.size()));
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,144 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.CommentRepository;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.PostCache;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CommentPaginationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    private Long postId;
+
+    @BeforeEach
+    void seed() {
+        postCache.invalidateAll();
+        Post post = postRepository.save(new Post("user", null, "busy thread", null, null));
+        postId = post.getId();
+        // Several comments share a timestamp so the id tie-breaker is exercised
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Comment comment = new Comment("user" + i, null, "comment " + i, null, null, post);
+            comment.setCreatedAt(base.plusMinutes(i / 3));
+            comments.add(comment);
+        }
+        commentRepository.saveAll(comments);
+        postRepository.recountComments();
+    }
+
+    @Test
+    void walksThreadForwardAndBackWithoutGapsOrDuplicates() throws Exception {
+        List<Integer> forward = new ArrayList<>();
+        String next = null;
+        String lastPrev = null;
+        do {
+            String body = page(next == null ? null : "after", next);
+            assertThat((Integer) JsonPath.read(body, "$.totalCount")).isEqualTo(25);
+            forward.addAll(numbers(body));
+            next = JsonPath.read(body, "$.nextCursor");
+            lastPrev = JsonPath.read(body, "$.prevCursor");
+        } while (next != null);
+        assertThat(forward).hasSize(25).isSorted().doesNotHaveDuplicates();
+
+        // From the last page (comments 21-24) back to the start
+        List<Integer> backward = new ArrayList<>(forward.subList(21, 25));
+        String prev = lastPrev;
+        while (prev != null) {
+            String body = page("before", prev);
+            List<Integer> numbers = numbers(body);
+            backward.addAll(0, numbers);
+            prev = JsonPath.read(body, "$.prevCursor");
+            assertThat((String) JsonPath.read(body, "$.nextCursor")).isNotNull();
+        }
+        assertThat(backward).isEqualTo(forward);
+    }
+
+    @Test
+    void totalCountFollowsCommentWrites() throws Exception {
+        mockMvc.perform(post("/api/posts/{id}/comments", postId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"late reply\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts/{id}/comments", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(26));
+
+        Long firstId = commentRepository.findThreadStart(postId, Limit.of(1))
+                .get(0).getId();
+        mockMvc.perform(delete("/api/posts/{postId}/comments/{commentId}", postId, firstId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/posts/{id}/comments", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(25))
+                .andExpect(jsonPath("$.items[0].content").value("comment 1"));
+        mockMvc.perform(get("/api/posts/{id}", postId))
+                .andExpect(jsonPath("$.commentCount").value(25));
+    }
+
+    @Test
+    void rejectsConflictingCursorsAndUnknownPosts() throws Exception {
+        String cursor = JsonPath.read(page(null, null), "$.nextCursor");
+        mockMvc.perform(get("/api/posts/{id}/comments", postId).param("after", cursor).param("before", cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/posts/{id}/comments", postId).param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/posts/{id}/comments", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    private String page(String direction, String cursor) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/posts/{id}/comments", postId).param("limit", "7");
+        if (direction != null) {
+            request = request.param(direction, cursor);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static List<Integer> numbers(String body) {
+        List<String> contents = JsonPath.read(body, "$.items[*].content");
+        List<Integer> numbers = new ArrayList<>();
+        for (String content : contents) {
+            numbers.add(Integer.parseInt(content.substring("comment ".length())));
+        }
+        return Collections.unmodifiableList(numbers);
+    }
+}
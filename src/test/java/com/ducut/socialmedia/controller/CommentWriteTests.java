@@ -0,0 +1,147 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.CommentRepository;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.LiveFeed;
+import com.ducut.socialmedia.service.PostQueryService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CommentWriteTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostQueryService postQueryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void addingACommentReturnsItWithoutLoadingThePost() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "busy", null, null)).getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(post("/api/posts/{id}/comments", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"  hi  \"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comment.content").value("hi"))
+                .andExpect(jsonPath("$.comment.username").value("Anonymous"))
+                .andExpect(jsonPath("$.commentCount").value(1))
+                .andExpect(jsonPath("$.comments").doesNotExist());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        mockMvc.perform(post("/api/posts/{id}/comments", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"orphan\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void commentOperationsAreScopedToTheirPost() throws Exception {
+        Long first = postRepository.save(new Post("user", null, "first", null, null)).getId();
+        Long second = postRepository.save(new Post("user", null, "second", null, null)).getId();
+        String body = mockMvc.perform(post("/api/posts/{id}/comments", first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"mine\"}"))
+                .andReturn().getResponse().getContentAsString();
+        Long commentId = ((Number) JsonPath.read(body, "$.comment.id")).longValue();
+
+        mockMvc.perform(post("/api/posts/{postId}/comments/{commentId}/like", second, commentId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/posts/{postId}/comments/{commentId}", second, commentId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hijacked\"}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/posts/{postId}/comments/{commentId}/like", first, commentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likeCount").value(1));
+        mockMvc.perform(put("/api/posts/{postId}/comments/{commentId}", first, commentId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\" edited \"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("edited"));
+    }
+
+    @Test
+    void bulkIngestInsertsAcrossPostsAndReportsMissingOnes() throws Exception {
+        Long first = postRepository.save(new Post("user", null, "first", null, null)).getId();
+        Long second = postRepository.save(new Post("user", null, "second", null, null)).getId();
+        long before = commentRepository.count();
+
+        String body = "[" +
+                "{\"postId\":" + first + ",\"content\":\"a\"}," +
+                "{\"postId\":" + second + ",\"content\":\"b\"}," +
+                "{\"postId\":" + first + ",\"content\":\"c\",\"username\":\"carol\"}," +
+                "{\"postId\":" + Long.MAX_VALUE + ",\"content\":\"lost\"}," +
+                "{\"content\":\"no post\"}" +
+                "]";
+        mockMvc.perform(post("/api/posts/comments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(5))
+                .andExpect(jsonPath("$.inserted").value(3))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0]").value("row 3: post " + Long.MAX_VALUE + " not found"))
+                .andExpect(jsonPath("$.errors[1]").value("row 4: postId is required"));
+
+        assertThat(commentRepository.count()).isEqualTo(before + 3);
+        mockMvc.perform(get("/api/posts/{id}/comments", first))
+                .andExpect(jsonPath("$.totalCount").value(2))
+                .andExpect(jsonPath("$.items[1].username").value("carol"));
+        mockMvc.perform(get("/api/posts/{id}", second))
+                .andExpect(jsonPath("$.commentCount").value(1));
+    }
+
+    @Test
+    void counterSnapshotsReadTheCountsWithoutTheThread() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "watched", null, null)).getId();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/posts/{id}/comments", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"content\":\"c\"}"))
+                    .andExpect(status().isOk());
+        }
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/posts/{id}/like", id)).andExpect(status().isOk());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Likes may still be pending in the aggregator; the snapshot includes them either way
+        assertThat(postQueryService.findCounters(List.of(id, Long.MAX_VALUE)))
+                .containsExactly(new LiveFeed.CounterSnapshot(id, 3, 0, 2));
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
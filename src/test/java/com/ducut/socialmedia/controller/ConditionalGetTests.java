@@ -0,0 +1,98 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.CounterAggregator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Test
+    void postEtagChangesWithEveryVisibleChange() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "etag me", null, null)).getId();
+
+        String etag = etagOf("/api/posts/" + id);
+        mockMvc.perform(get("/api/posts/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // An unflushed tap is visible, so it must change the ETag
+        mockMvc.perform(post("/api/posts/{id}/like", id)).andExpect(status().isOk());
+        String afterLike = etagOf("/api/posts/" + id);
+        assertThat(afterLike).isNotEqualTo(etag);
+
+        counterAggregator.flush();
+        String afterFlush = etagOf("/api/posts/" + id);
+        mockMvc.perform(get("/api/posts/{id}", id).header(HttpHeaders.IF_NONE_MATCH, afterFlush))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/posts/{id}/comments", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hello\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts/{id}", id).header(HttpHeaders.IF_NONE_MATCH, afterFlush))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void commentListSupportsIfNoneMatch() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "thread", null, null)).getId();
+        String etag = etagOf("/api/posts/" + id + "/comments");
+
+        mockMvc.perform(get("/api/posts/{id}/comments", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/posts/{id}/comments", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hello\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/posts/{id}/comments", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void etagIsWeakAndVariesByAccept() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "one tag, several formats", null, null)).getId();
+
+        String json = etagOf("/api/posts/" + id);
+        assertThat(json).startsWith("W/\"");
+        mockMvc.perform(get("/api/posts/{id}", id).accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/api/posts/{id}", id).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+    }
+
+    private String etagOf(String path) throws Exception {
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.FeedService;
+import com.ducut.socialmedia.service.PostCache;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FeedPaginationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    @BeforeEach
+    void seed() {
+        postRepository.deleteAll();
+        postCache.invalidateAll();
+        // Several posts share a timestamp so the id tie-breaker is exercised
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Post post = new Post("user" + i, null, "post " + i, null, null);
+            post.setCreatedAt(base.plusMinutes(i / 3));
+            posts.add(post);
+        }
+        postRepository.saveAll(posts);
+    }
+
+    @Test
+    void walksWholeFeedWithoutGapsOrDuplicates() throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/posts").param("limit", "7");
+            if (cursor != null) {
+                request = request.param("before", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Integer> ids = JsonPath.read(body, "$.items[*].id");
+            assertThat(ids.size()).isLessThanOrEqualTo(7);
+            seen.addAll(ids);
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates();
+        List<Post> expected = postRepository.findAll().stream()
+                .sorted((a, b) -> a.getCreatedAt().equals(b.getCreatedAt())
+                        ? b.getId().compareTo(a.getId())
+                        : b.getCreatedAt().compareTo(a.getCreatedAt()))
+                .toList();
+        assertThat(seen).containsExactlyElementsOf(
+                expected.stream().map(p -> p.getId().intValue()).toList());
+    }
+
+    @Test
+    void clampsLimitAndRejectsGarbageCursor() throws Exception {
+        // More posts than the cap, so a missing clamp would return all of them
+        List<Post> more = new ArrayList<>();
+        for (int i = 0; i < FeedService.MAX_PAGE_SIZE; i++) {
+            more.add(new Post("extra" + i, null, "extra post " + i, null, null));
+        }
+        postRepository.saveAll(more);
+
+        mockMvc.perform(get("/api/posts").param("limit", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(FeedService.MAX_PAGE_SIZE))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+
+        mockMvc.perform(get("/api/posts").param("before", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
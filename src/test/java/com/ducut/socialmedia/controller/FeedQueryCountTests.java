@@ -0,0 +1,99 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Comment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.CommentRepository;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.CounterAggregator;
+import com.ducut.socialmedia.service.PostCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FeedQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void seed() {
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        postCache.invalidateAll();
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Post post = postRepository.save(new Post("user" + i, null, "post " + i, null, null));
+            for (int j = 0; j < i % 7; j++) {
+                comments.add(new Comment("commenter" + j, null, "comment " + j, null, null, post));
+            }
+        }
+        commentRepository.saveAll(comments);
+        // Seeded around the service layer, so bring the maintained counts in line
+        postRepository.recountComments();
+        // Drain and retire counter cells left by other tests, so no flush overlaps the measured reads
+        counterAggregator.flush();
+        counterAggregator.flush();
+    }
+
+    @Test
+    void feedPageUsesFixedNumberOfStatementsRegardlessOfPageSize() throws Exception {
+        assertThat(statementsFor(5)).isLessThanOrEqualTo(2);
+        assertThat(statementsFor(50)).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void feedEntriesCarryCountAndNewestComments() throws Exception {
+        mockMvc.perform(get("/api/posts").param("limit", "1").param("previewComments", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].content").value("post 59"))
+                .andExpect(jsonPath("$.items[0].commentCount").value(59 % 7))
+                .andExpect(jsonPath("$.items[0].comments.length()").value(2))
+                .andExpect(jsonPath("$.items[0].comments[0].content").value("comment " + (59 % 7 - 1)));
+    }
+
+    // Every JDBC statement the request ran, whether it came from JPA, JdbcTemplate or plain JDBC
+    private long statementsFor(int limit) throws Exception {
+        double before = statementSummary().map(DistributionSummary::totalAmount).orElse(0.0);
+        mockMvc.perform(get("/api/posts").param("limit", String.valueOf(limit)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(limit));
+        return (long) (statementSummary().orElseThrow().totalAmount() - before);
+    }
+
+    private Optional<DistributionSummary> statementSummary() {
+        return Optional.ofNullable(meterRegistry.find("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/api/posts")
+                .summary());
+    }
+}
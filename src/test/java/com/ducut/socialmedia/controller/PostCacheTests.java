@@ -0,0 +1,59 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void repeatedReadsAreServedFromCacheUntilAWriteInvalidates() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "hot post", null, null)).getId();
+        mockMvc.perform(get("/api/posts/{id}", id)).andExpect(status().isOk());
+        // Counts every JDBC statement these requests ran, and nothing from background jobs
+        DistributionSummary statements = meterRegistry.get("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/api/posts/{id}")
+                .summary();
+        double before = statements.totalAmount();
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(get("/api/posts/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.commentCount").value(0));
+        }
+        assertThat(statements.totalAmount()).isEqualTo(before);
+
+        mockMvc.perform(post("/api/posts/{id}/comments", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"first!\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/posts/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commentCount").value(1))
+                .andExpect(jsonPath("$.comments[0].content").value("first!"));
+    }
+}
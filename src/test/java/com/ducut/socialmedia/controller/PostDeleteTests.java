@@ -0,0 +1,99 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.dto.NewComment;
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.PostPurgeService;
+import com.ducut.socialmedia.service.PostWriteService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostDeleteTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostWriteService postWriteService;
+
+    @Autowired
+    private PostPurgeService postPurgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long postWithComments(int count) {
+        Long id = postRepository.save(new Post("owner", null, "thread", null, null)).getId();
+        List<NewComment> comments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            comments.add(new NewComment(id, "commenter", null, "comment " + i, null, null));
+        }
+        postWriteService.addComments(comments);
+        return id;
+    }
+
+    private int rows(String table, String column, Long id) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE " + column + " = ?",
+                Integer.class, id);
+    }
+
+    @Test
+    void deletesThreadWithSetBasedStatements() throws Exception {
+        Long id = postWithComments(200);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(delete("/api/posts/{id}", id)).andExpect(status().isNoContent());
+        // Count lookup, one comment delete, one post delete; never a statement per comment
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+
+        assertThat(rows("posts", "id", id)).isZero();
+        assertThat(rows("comments", "post_id", id)).isZero();
+        mockMvc.perform(delete("/api/posts/{id}", id)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void largeThreadsAreHiddenAtOnceAndPurgedInTheBackground() throws Exception {
+        Long id = postWithComments(25);
+        Object threshold = ReflectionTestUtils.getField(postWriteService, "asyncDeleteThreshold");
+        ReflectionTestUtils.setField(postWriteService, "asyncDeleteThreshold", 10L);
+        try {
+            mockMvc.perform(delete("/api/posts/{id}", id)).andExpect(status().isAccepted());
+        } finally {
+            ReflectionTestUtils.setField(postWriteService, "asyncDeleteThreshold", threshold);
+        }
+
+        mockMvc.perform(get("/api/posts/{id}", id)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/posts/{id}/comments", id)).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/posts/{id}", id)).andExpect(status().isNotFound());
+        assertThat(postRepository.existsById(id)).isFalse();
+
+        postPurgeService.purge();
+        assertThat(rows("posts", "id", id)).isZero();
+        assertThat(rows("comments", "post_id", id)).isZero();
+    }
+}
@@ -0,0 +1,125 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostExportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<Long> seed(LocalDateTime createdAt, int count) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Post post = new Post("exporter", null, "export " + i, null, null);
+            post.setCreatedAt(createdAt.plusMinutes(i));
+            ids.add(postRepository.save(post).getId());
+        }
+        mockMvc.perform(post("/api/posts/{id}/comments", ids.get(0))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"first\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/posts/{id}/comments", ids.get(0))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"second\"}"))
+                .andExpect(status().isOk());
+        return ids;
+    }
+
+    private MvcResult export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private List<JsonNode> lines(byte[] body) throws IOException {
+        List<JsonNode> nodes = new ArrayList<>();
+        for (String line : new String(body, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                nodes.add(objectMapper.readTree(line));
+            }
+        }
+        return nodes;
+    }
+
+    @Test
+    void exportsMatchingPostsInIdOrderAndResumesAfterId() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2001, 3, 1, 0, 0);
+        List<Long> ids = seed(from, 5);
+
+        MvcResult all = export(get("/api/posts/export")
+                .param("createdFrom", from.toString())
+                .param("createdTo", from.plusDays(1).toString()));
+        List<JsonNode> posts = lines(all.getResponse().getContentAsByteArray());
+        assertThat(posts).extracting(node -> node.get("id").asLong()).containsExactlyElementsOf(ids);
+        assertThat(posts.get(0).get("commentCount").asLong()).isEqualTo(2);
+        assertThat(posts.get(0).get("comments")).extracting(node -> node.get("content").asText())
+                .containsExactly("first", "second");
+        assertThat(posts.get(1).get("comments")).isEmpty();
+
+        MvcResult resumed = export(get("/api/posts/export")
+                .param("createdFrom", from.toString())
+                .param("createdTo", from.plusDays(1).toString())
+                .param("afterId", ids.get(2).toString())
+                .param("comments", "false"));
+        assertThat(lines(resumed.getResponse().getContentAsByteArray()))
+                .extracting(node -> node.get("id").asLong())
+                .containsExactly(ids.get(3), ids.get(4));
+    }
+
+    @Test
+    void gzipsWhenTheClientAcceptsIt() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2002, 5, 1, 0, 0);
+        List<Long> ids = seed(from, 3);
+
+        MvcResult result = export(get("/api/posts/export")
+                .header("Accept-Encoding", "gzip, deflate")
+                .param("createdFrom", from.toString())
+                .param("createdTo", from.plusDays(1).toString()));
+        assertThat(result.getResponse().getHeader("Content-Encoding")).isEqualTo("gzip");
+
+        try (InputStream unzipped = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertThat(lines(unzipped.readAllBytes()))
+                    .extracting(node -> node.get("id").asLong())
+                    .containsExactlyElementsOf(ids);
+        }
+    }
+}
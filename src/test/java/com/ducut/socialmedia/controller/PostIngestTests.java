@@ -0,0 +1,97 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.PostDefaults;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostIngestTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void ndjsonIngestReportsPerChunkOutcome() throws Exception {
+        long before = postRepository.count();
+        String body = """
+                {"content":"  first  ","username":"alice"}
+                {"content":"second"}
+                {"content":
+                {"imageUrl":"https://example.com/a.png"}
+
+                {"username":"no body"}
+                """;
+
+        mockMvc.perform(post("/api/posts/bulk")
+                        .param("chunkSize", "2")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(5))
+                .andExpect(jsonPath("$.inserted").value(3))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.chunks.length()").value(3))
+                .andExpect(jsonPath("$.chunks[0].inserted").value(2))
+                .andExpect(jsonPath("$.chunks[1].failed").value(1))
+                .andExpect(jsonPath("$.chunks[2].errors[0]").value(
+                        "line 6: Post must contain either content, image, or video"));
+
+        assertThat(postRepository.count()).isEqualTo(before + 3);
+        assertThat(postRepository.findAll()).anyMatch(p -> "first".equals(p.getContent())
+                && "alice".equals(p.getUsername()));
+    }
+
+    @Test
+    void nestedCommentsAreInsertedAndCounted() throws Exception {
+        String body = """
+                {"content":"with thread","comments":[{"content":" one "},{"content":"two","username":"bob"}]}
+                """;
+
+        mockMvc.perform(post("/api/posts/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1));
+
+        Long id = jdbcTemplate.queryForObject("SELECT max(id) FROM posts WHERE content = 'with thread'", Long.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT comment_count FROM posts WHERE id = ?", Long.class, id))
+                .isEqualTo(2);
+        mockMvc.perform(get("/api/posts/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commentCount").value(2))
+                .andExpect(jsonPath("$.comments[0].content").value("one"))
+                .andExpect(jsonPath("$.comments[0].username").value(PostDefaults.ANONYMOUS));
+    }
+
+    @Test
+    void rowsThatFailOnRetryAreReportedByLine() throws Exception {
+        // Too long for the column, so the chunk fails as a whole and then this row on its own
+        String body = "{\"content\":\"fine\"}\n{\"content\":\"fine too\"}\n{\"content\":\"" + "x".repeat(300) + "\"}\n";
+
+        mockMvc.perform(post("/api/posts/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.chunks[0].errors[0]").value(startsWith("line 3: ")));
+    }
+}
@@ -0,0 +1,57 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostSearchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    void searchPagesThroughAllMatches() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            postRepository.save(new Post("user", null, (i % 2 == 0 ? "Zebra sighting " : "nothing ") + i, null, null));
+        }
+
+        List<String> contents = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/posts/search").param("q", "zebra").param("limit", "4");
+            if (cursor != null) {
+                request = request.param("after", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            contents.addAll(JsonPath.read(body, "$.items[*].content"));
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+
+        assertThat(contents).hasSize(6).allMatch(c -> c.startsWith("Zebra"));
+    }
+
+    @Test
+    void blankQueryIsRejected() throws Exception {
+        mockMvc.perform(get("/api/posts/search").param("q", "  "))
+                .andExpect(status().isBadRequest());
+    }
+}
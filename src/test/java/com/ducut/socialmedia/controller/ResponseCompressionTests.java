@@ -0,0 +1,61 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compression happens in Tomcat, not in the DispatcherServlet, so this runs against a real
+ * server. It gets its own in-memory database, because a second context on the shared one would
+ * recreate the schema under the other test classes. The test {@code application.properties}
+ * replaces the main one, so the compression settings are repeated here.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:compression;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "server.compression.enabled=true",
+        "server.compression.mime-types=application/json,application/x-jackson-smile,application/cbor",
+        "server.compression.min-response-size=1KB"})
+class ResponseCompressionTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    void postByIdIsGzippedWithItsEtag() throws Exception {
+        // Above server.compression.min-response-size
+        String imageUrl = "https://cdn.example.com/" + "a".repeat(1500) + ".png";
+        Long id = postRepository.save(new Post("user", null, "compress me", imageUrl, null)).getId();
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/posts/" + id))
+                        .header(HttpHeaders.ACCEPT, "application/json")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(response.headers().firstValue(HttpHeaders.ETAG)).hasValueSatisfying(
+                etag -> assertThat(etag).startsWith("W/\""));
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).contains("compress me");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.CounterAggregator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SparseFieldsetTests {
+    private static final String LONG_URL = "https://cdn.example.com/" + "x".repeat(1500) + ".jpg";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JsonNode json(String path) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private Long postWithComment() throws Exception {
+        Long id = postRepository.save(new Post("sparse-author", null, "sparse post", LONG_URL, LONG_URL)).getId();
+        mockMvc.perform(post("/api/posts/{id}/comments", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"sparse-commenter\",\"content\":\"first\"}"))
+                .andExpect(status().isOk());
+        return id;
+    }
+
+    @Test
+    void feedReturnsOnlyRequestedFieldsInRequestedOrder() throws Exception {
+        Long id = postWithComment();
+        mockMvc.perform(post("/api/posts/{id}/like", id)).andExpect(status().isOk());
+
+        JsonNode page = json("/api/posts?limit=100&fields=content,username,likeCount,id");
+        JsonNode item = null;
+        for (JsonNode candidate : page.get("items")) {
+            if (candidate.get("id").asLong() == id) {
+                item = candidate;
+            }
+        }
+        assertThat(item).isNotNull();
+        assertThat(fieldNames(item)).containsExactly("content", "username", "likeCount", "id");
+        assertThat(item.get("username").asText()).isEqualTo("sparse-author");
+        // The unflushed like is visible, as on the full feed
+        assertThat(item.get("likeCount").asInt()).isEqualTo(1);
+
+        JsonNode withComments = json("/api/posts?limit=100&fields=id&include=comments");
+        for (JsonNode candidate : withComments.get("items")) {
+            assertThat(fieldNames(candidate)).containsExactly("id", "comments");
+            if (candidate.get("id").asLong() == id) {
+                assertThat(candidate.get("comments").get(0).get("username").asText()).isEqualTo("sparse-commenter");
+            }
+        }
+    }
+
+    @Test
+    void sparseFeedPagesWithTheSameCursors() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            postRepository.save(new Post("pager", null, "page " + i, null, null));
+        }
+        JsonNode first = json("/api/posts?limit=2&fields=id");
+        JsonNode full = json("/api/posts?limit=2");
+        assertThat(first.get("nextCursor").asText()).isEqualTo(full.get("nextCursor").asText());
+
+        JsonNode second = json("/api/posts?limit=2&fields=id&before=" + first.get("nextCursor").asText());
+        long lastOfFirst = first.get("items").get(1).get("id").asLong();
+        assertThat(second.get("items").get(0).get("id").asLong()).isNotEqualTo(lastOfFirst);
+    }
+
+    @Test
+    void sparseResponsesAreMuchSmaller() throws Exception {
+        Long id = postWithComment();
+        int full = mockMvc.perform(get("/api/posts/{id}", id))
+                .andReturn().getResponse().getContentAsByteArray().length;
+        int sparse = mockMvc.perform(get("/api/posts/{id}?fields=id,username,content,likeCount", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrl").doesNotExist())
+                .andExpect(jsonPath("$.comments").doesNotExist())
+                .andReturn().getResponse().getContentAsByteArray().length;
+        assertThat(sparse * 10).isLessThan(full);
+    }
+
+    @Test
+    void commentsSupportFieldsAndPaging() throws Exception {
+        Long id = postWithComment();
+        mockMvc.perform(post("/api/posts/{id}/comments", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"second\"}"))
+                .andExpect(status().isOk());
+
+        JsonNode first = json("/api/posts/" + id + "/comments?limit=1&fields=content");
+        assertThat(first.get("totalCount").asLong()).isEqualTo(2);
+        assertThat(fieldNames(first.get("items").get(0))).containsExactly("content");
+        assertThat(first.get("items").get(0).get("content").asText()).isEqualTo("first");
+
+        JsonNode second = json("/api/posts/" + id + "/comments?limit=1&fields=content&after="
+                + first.get("nextCursor").asText());
+        assertThat(second.get("items").get(0).get("content").asText()).isEqualTo("second");
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+
+        JsonNode back = json("/api/posts/" + id + "/comments?limit=1&fields=content&before="
+                + second.get("prevCursor").asText());
+        assertThat(back.get("items").get(0).get("content").asText()).isEqualTo("first");
+
+        Long commentId = json("/api/posts/" + id + "/comments?fields=id").get("items").get(0).get("id").asLong();
+        counterAggregator.increment(CounterAggregator.Counter.COMMENT_LIKES, commentId, id);
+        assertThat(json("/api/posts/" + id + "/comments?fields=likeCount").get("items").get(0).get("likeCount").asInt())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndIncludes() throws Exception {
+        Long id = postWithComment();
+        mockMvc.perform(get("/api/posts?fields=id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation failed"));
+        mockMvc.perform(get("/api/posts?fields=id&include=likes"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/posts/{id}/comments?fields=shareCount", id))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/posts/{id}?fields=nope", id))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void eachFieldsetHasItsOwnEtag() throws Exception {
+        Long id = postWithComment();
+        String full = mockMvc.perform(get("/api/posts/{id}", id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String sparse = mockMvc.perform(get("/api/posts/{id}?fields=id,content", id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(sparse).isNotEqualTo(full);
+
+        mockMvc.perform(get("/api/posts/{id}?fields=content,id", id).header(HttpHeaders.IF_NONE_MATCH, sparse))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/posts/{id}?fields=id,content", id).header(HttpHeaders.IF_NONE_MATCH, full))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void negotiatesBinaryEncodings() throws Exception {
+        Long id = postWithComment();
+        byte[] smile = mockMvc.perform(get("/api/posts/{id}?fields=id,content,createdAt", id)
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode decoded = new ObjectMapper(new SmileFactory()).readTree(smile);
+        assertThat(decoded.get("id").asLong()).isEqualTo(id);
+        // Same date format as the JSON encoding
+        assertThat(decoded.get("createdAt").isTextual()).isTrue();
+
+        byte[] cbor = mockMvc.perform(get("/api/posts/{id}/comments", id).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor).get("items").get(0).get("content").asText())
+                .isEqualTo("first");
+
+        mockMvc.perform(get("/api/posts/{id}", id))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
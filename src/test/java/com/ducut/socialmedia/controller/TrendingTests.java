@@ -0,0 +1,134 @@
+package com.ducut.socialmedia.controller;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import com.ducut.socialmedia.service.TrendingService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TrendingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private List<Long> trendingIds(Set<Long> among) throws Exception {
+        // Posts show up once a summary refresh has picked them up
+        trendingService.refreshSummaries();
+        String body = mockMvc.perform(get("/api/posts/trending").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode row : objectMapper.readTree(body)) {
+            long id = row.get("post").get("id").asLong();
+            if (among.contains(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void ranksByLikesSharesAndCommentsAsTheyHappen() throws Exception {
+        Long quiet = postRepository.save(new Post("a", null, "quiet", null, null)).getId();
+        Long liked = postRepository.save(new Post("b", null, "liked", null, null)).getId();
+        Long shared = postRepository.save(new Post("c", null, "shared", null, null)).getId();
+
+        mockMvc.perform(post("/api/posts/{id}/like", liked)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/posts/{id}/like", liked)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/posts/{id}/share", shared)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/posts/{id}/comments", quiet)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"hi\"}"))
+                .andExpect(status().isOk());
+
+        Set<Long> mine = Set.of(quiet, liked, shared);
+        assertThat(trendingIds(mine)).containsExactly(shared, quiet, liked);
+
+        mockMvc.perform(delete("/api/posts/{id}", shared)).andExpect(status().isNoContent());
+        assertThat(trendingIds(mine)).containsExactly(quiet, liked);
+    }
+
+    @Test
+    void bulkCommentsCountOncePerCreatedComment() throws Exception {
+        Long one = postRepository.save(new Post("e", null, "one comment", null, null)).getId();
+        Long three = postRepository.save(new Post("f", null, "three comments", null, null)).getId();
+        Long shared = postRepository.save(new Post("g", null, "one share", null, null)).getId();
+
+        mockMvc.perform(post("/api/posts/{id}/share", shared)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/posts/comments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"postId\":" + one + ",\"content\":\"a\"}," +
+                                "{\"postId\":" + three + ",\"content\":\"b\"}," +
+                                "{\"postId\":" + three + ",\"content\":\"c\"}," +
+                                "{\"postId\":" + three + ",\"content\":\"d\"}]"))
+                .andExpect(status().isOk());
+
+        // Comments weigh 2 and shares 3: 6 > 3 > 2
+        assertThat(trendingIds(Set.of(one, three, shared))).containsExactly(three, shared, one);
+    }
+
+    @Test
+    void readingTrendingRunsNoQueries() throws Exception {
+        Long id = postRepository.save(new Post("h", null, "read from memory", null, null)).getId();
+        mockMvc.perform(post("/api/posts/{id}/share", id)).andExpect(status().isOk());
+        trendingService.refreshSummaries();
+
+        double before = trendingStatements();
+        mockMvc.perform(get("/api/posts/trending").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.post.id == " + id + ")].post.content").value("read from memory"));
+        // Every JDBC statement the request ran, and nothing from the scheduled refresh
+        assertThat(trendingStatements()).isEqualTo(before);
+    }
+
+    @Test
+    void rebuildSeedsFromStoredCounters() throws Exception {
+        Post popular = new Post("d", null, "popular before restart", null, null);
+        popular.setLikeCount(500);
+        Long id = postRepository.save(popular).getId();
+
+        assertThat(trendingIds(Set.of(id))).isEmpty();
+        trendingService.rebuild();
+        assertThat(trendingIds(Set.of(id))).containsExactly(id);
+    }
+
+    private double trendingStatements() {
+        DistributionSummary statements = meterRegistry.find("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/api/posts/trending")
+                .summary();
+        return statements != null ? statements.totalAmount() : 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.model.Post;
+import com.ducut.socialmedia.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CounterAggregatorTests {
+
+    @Autowired
+    private CounterAggregator counterAggregator;
+
+    @Autowired
+    private PostQueryService postQueryService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    void concurrentTapsAreNeverLostAndReadsSeeUnflushedDelta() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "viral", null, null)).getId();
+
+        int threads = 8;
+        int tapsPerThread = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < tapsPerThread; i++) {
+                    counterAggregator.increment(CounterAggregator.Counter.POST_LIKES, id);
+                    if (i % 250 == 0) {
+                        // Interleave flushes with taps, as the scheduler would
+                        counterAggregator.flush();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        int expected = threads * tapsPerThread;
+        assertThat(postQueryService.findPost(id).orElseThrow().likeCount()).isEqualTo(expected);
+
+        counterAggregator.flush();
+        assertThat(counterAggregator.pendingDelta(CounterAggregator.Counter.POST_LIKES, id)).isZero();
+        assertThat(postRepository.findById(id).orElseThrow().getLikeCount()).isEqualTo(expected);
+    }
+
+    @Test
+    void tapsRacingACellBeingRetiredAreNeverLost() throws Exception {
+        Long id = postRepository.save(new Post("user", null, "sporadic", null, null)).getId();
+
+        // Sparse taps against a flush that never stops, so cells keep going idle and being retired
+        // while a tap still holds them
+        int threads = 4;
+        int tapsPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean tapping = new AtomicBoolean(true);
+        Future<?> flusher = pool.submit(() -> {
+            while (tapping.get()) {
+                counterAggregator.flush();
+            }
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < tapsPerThread; i++) {
+                    counterAggregator.increment(CounterAggregator.Counter.POST_LIKES, id);
+                    Thread.yield();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        tapping.set(false);
+        flusher.get();
+        pool.shutdown();
+
+        counterAggregator.flush();
+        assertThat(counterAggregator.pendingDelta(CounterAggregator.Counter.POST_LIKES, id)).isZero();
+        assertThat(postRepository.findById(id).orElseThrow().getLikeCount()).isEqualTo(threads * tapsPerThread);
+    }
+}
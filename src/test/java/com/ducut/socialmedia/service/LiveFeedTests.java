@@ -0,0 +1,150 @@
+package com.ducut.socialmedia.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LiveFeedTests {
+    private static final Pattern EVENT = Pattern.compile("id:(\\d+)\nevent:([a-z-]+)\n");
+
+    private final PostQueryService postQueryService = mock(PostQueryService.class);
+    private final LiveFeed liveFeed = new LiveFeed(new ObjectMapper().findAndRegisterModules(), postQueryService,
+            new SimpleMeterRegistry(), 8, 4, 100, Duration.ofMinutes(1));
+
+    /** Captures what would have been written to the client. */
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        volatile boolean completed;
+        CountDownLatch blockUntil;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            Matcher matcher = EVENT.matcher(text);
+            if (matcher.find()) {
+                events.add(matcher.group(1) + ":" + matcher.group(2));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for the stream").isLessThan(deadline);
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+    }
+
+    @AfterEach
+    void close() {
+        liveFeed.close();
+    }
+
+    @Test
+    void deliversEventsInOrderAndResumesFromLastEventId() {
+        RecordingEmitter live = new RecordingEmitter();
+        liveFeed.subscribe(live, null);
+        liveFeed.postDeleted(1L);
+        liveFeed.postsAdded(3);
+        liveFeed.postDeleted(2L);
+        waitFor(() -> live.events.size() == 3);
+        assertThat(live.events).containsExactly("1:post-deleted", "2:posts-added", "3:post-deleted");
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        liveFeed.subscribe(resumed, 1L);
+        waitFor(() -> resumed.events.size() == 2);
+        assertThat(resumed.events).containsExactly("2:posts-added", "3:post-deleted");
+    }
+
+    @Test
+    void resumingPastTheBufferAsksTheClientToRefetch() {
+        for (long i = 1; i <= 10; i++) {
+            liveFeed.postDeleted(i);
+        }
+        RecordingEmitter stale = new RecordingEmitter();
+        liveFeed.subscribe(stale, 2L);
+        liveFeed.postDeleted(11L);
+        waitFor(() -> stale.events.size() == 2);
+        assertThat(stale.events).containsExactly("10:reset", "11:post-deleted");
+    }
+
+    @Test
+    void resumingFromAnIdTheRingNeverIssuedAsksTheClientToRefetch() {
+        // As after a restart: the client saw event 50 from the previous process
+        liveFeed.postDeleted(1L);
+        RecordingEmitter ahead = new RecordingEmitter();
+        liveFeed.subscribe(ahead, 50L);
+        liveFeed.postDeleted(2L);
+        waitFor(() -> ahead.events.size() == 2);
+        assertThat(ahead.events).containsExactly("1:reset", "2:post-deleted");
+    }
+
+    @Test
+    void slowConsumersAreDroppedInsteadOfBuffered() {
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.blockUntil = new CountDownLatch(1);
+        RecordingEmitter fast = new RecordingEmitter();
+        liveFeed.subscribe(slow, null);
+        liveFeed.subscribe(fast, null);
+
+        for (long i = 1; i <= 6; i++) {
+            liveFeed.postDeleted(i);
+            int delivered = (int) i;
+            waitFor(() -> fast.events.size() == delivered);
+        }
+        slow.blockUntil.countDown();
+
+        waitFor(() -> slow.completed);
+        assertThat(liveFeed.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void counterChangesAreCoalescedPerPost() {
+        when(postQueryService.findCounters(List.of(7L))).thenReturn(List.of(new LiveFeed.CounterSnapshot(7L, 42, 3, 5)));
+        RecordingEmitter live = new RecordingEmitter();
+        liveFeed.subscribe(live, null);
+
+        for (int i = 0; i < 100; i++) {
+            liveFeed.countersChanged(7L);
+        }
+        liveFeed.publishCounters();
+        liveFeed.publishCounters();
+
+        waitFor(() -> live.events.size() == 1);
+        assertThat(live.events).containsExactly("1:counters");
+        verify(postQueryService, times(1)).findCounters(List.of(7L));
+        verify(postQueryService, never()).findPost(7L);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ducut.socialmedia.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+    private static final int CALLERS = 20;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private double calls(String outcome) {
+        return meterRegistry.get("singleflight.calls").tag("outcome", outcome).counter().count();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /** Starts a leader blocked on {@code release}, then {@code CALLERS - 1} callers that queue behind it. */
+    private <T> List<Future<T>> pileUp(ExecutorService executor, SingleFlight<Long, T> flight,
+                                       CountDownLatch release, Supplier<T> load)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load.get();
+        })));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.execute(1L, () -> {
+                throw new AssertionError("Only the leader loads");
+            })));
+        }
+        waitFor(() -> flight.waiting() == CALLERS - 1);
+        return results;
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = pileUp(executor, flight, release, () -> "post-" + loads.incrementAndGet());
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("post-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(calls("leader")).isEqualTo(1);
+        assertThat(calls("coalesced")).isEqualTo(CALLERS - 1);
+
+        // Nothing is remembered once the load is done
+        assertThat(flight.execute(1L, () -> "post-" + loads.incrementAndGet())).isEqualTo("post-2");
+    }
+
+    @Test
+    void waitersGetTheLeadersExceptionAndTheNextCallRetries() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = pileUp(executor, flight, release, () -> {
+                throw failure;
+            });
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCause(failure);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(flight.execute(1L, () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void waitingIsBounded() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> flight.execute(1L, () -> "unused"))
+                    .isInstanceOf(SingleFlight.WaitTimeoutException.class);
+            assertThat(calls("timeout")).isEqualTo(1);
+            // Other keys are never held up
+            assertThat(flight.execute(2L, () -> "other")).isEqualTo("other");
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
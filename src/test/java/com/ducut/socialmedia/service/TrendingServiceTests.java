@@ -0,0 +1,78 @@
+package com.ducut.socialmedia.service;
+
+import com.ducut.socialmedia.dto.TrendingPost;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.Mockito.mock;
+
+class TrendingServiceTests {
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private TrendingService trending(int capacity) {
+        return new TrendingService(mock(DataSource.class), mock(PlatformTransactionManager.class),
+                capacity, Duration.ofHours(1), Duration.ofDays(1));
+    }
+
+    @Test
+    void olderEngagementCountsForLessThanRecentEngagement() {
+        TrendingService trending = trending(10);
+        long now = System.currentTimeMillis();
+        // Three likes two half-lives ago are worth less than one like now
+        trending.record(1L, 3, now - 2 * HOUR);
+        trending.record(2L, 1, now);
+        trending.record(3L, 1, now - HOUR);
+
+        assertThat(trending.topScores(10)).extracting(TrendingPost.Score::postId).containsExactly(2L, 1L, 3L);
+        assertThat(trending.topScores(10).get(1).score()).isCloseTo(0.75, offset(0.01));
+    }
+
+    @Test
+    void staysWithinCapacityByEvictingTheLowestScore() {
+        TrendingService trending = trending(3);
+        long now = System.currentTimeMillis();
+        for (long id = 1; id <= 10; id++) {
+            trending.record(id, id, now);
+        }
+        assertThat(trending.topScores(100)).extracting(TrendingPost.Score::postId).containsExactly(10L, 9L, 8L);
+        assertThat(trending.topScores(2)).hasSize(2);
+
+        trending.remove(9L);
+        assertThat(trending.topScores(100)).extracting(TrendingPost.Score::postId).containsExactly(10L, 8L);
+    }
+
+    @Test
+    void repeatedSmallSignalsGetAPostIn() {
+        TrendingService trending = trending(3);
+        long now = System.currentTimeMillis();
+        for (long id = 1; id <= 3; id++) {
+            trending.record(id, 10, now);
+        }
+        // Every like on its own is far below the lowest tracked score
+        for (int i = 0; i < 15; i++) {
+            trending.record(4L, 1, now);
+        }
+
+        assertThat(trending.topScores(100)).extracting(TrendingPost.Score::postId).containsExactly(4L, 3L, 2L);
+        // Inherited the evicted 10, then every like on top
+        assertThat(trending.topScores(1).get(0).score()).isCloseTo(25, offset(0.01));
+    }
+
+    @Test
+    void rankingSurvivesMovingTheEpoch() {
+        TrendingService trending = trending(10);
+        long now = System.currentTimeMillis();
+        trending.record(1L, 1, now);
+        trending.record(2L, 4, now + HOUR);
+        // Far enough ahead to force a rebase
+        trending.record(3L, 1, now + 40 * HOUR);
+        trending.record(1L, 1, now + 40 * HOUR);
+
+        assertThat(trending.topScores(10)).extracting(TrendingPost.Score::postId).containsExactly(1L, 3L, 2L);
+    }
+}